@@ -0,0 +1,501 @@
+/* *****************************************************************************
+ *  Name: Pascal P.
+ *  Date: Oct 2020
+ *  Description: JMH workloads - hot paths of the assignments (see bench.HotPaths)
+ **************************************************************************** */
+
+import bench.Workload;
+import edu.princeton.cs.algs4.BinaryStdIn;
+import edu.princeton.cs.algs4.BinaryStdOut;
+import edu.princeton.cs.algs4.Digraph;
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.Point2D;
+import edu.princeton.cs.algs4.RectHV;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Adapters between the (default package) assignments and the benchmarks (package bench), loaded by name,
+ * see Workload.load(). Inputs are random but deterministic (seeded), built once in setup().
+ */
+public final class Workloads {
+
+    private Workloads() {
+    }
+
+    // one percolation trial on an n-by-n grid, as done by the original client
+    public static class PercolationOpen implements Workload {
+        private int n;
+        private Random rnd;
+
+        public void setup(int size, long seed) {
+            this.n = size;
+            this.rnd = new Random(seed);
+        }
+
+        public Object run() {
+            Percolation perco = new Percolation(n);
+            while (!perco.percolates()) {
+                perco.open(1 + rnd.nextInt(n), 1 + rnd.nextInt(n));
+            }
+            return perco.numberOfOpenSites();
+        }
+    }
+
+    // enqueue size items, then dequeue them all
+    public static class RandomizedQueueDequeue implements Workload {
+        private Integer[] items;
+
+        public void setup(int size, long seed) {
+            StdRandom.setSeed(seed);
+            this.items = new Integer[size];
+            for (int ix = 0; ix < size; ix++) items[ix] = ix;
+        }
+
+        public Object run() {
+            RandomizedQueue<Integer> rq = new RandomizedQueue<>();
+            for (Integer item : items) rq.enqueue(item);
+            long sum = 0;
+            while (!rq.isEmpty()) sum = 31 * sum + rq.dequeue();
+            return sum;
+        }
+    }
+
+    // ditto, weighted (random weights in [1, 100))
+    public static class WeightedRandomizedQueueDequeue implements Workload {
+        private Integer[] items;
+        private double[] weights;
+
+        public void setup(int size, long seed) {
+            StdRandom.setSeed(seed);
+            Random rnd = new Random(seed);
+            this.items = new Integer[size];
+            this.weights = new double[size];
+            for (int ix = 0; ix < size; ix++) {
+                items[ix] = ix;
+                weights[ix] = 1.0 + 99.0 * rnd.nextDouble();
+            }
+        }
+
+        public Object run() {
+            WeightedRandomizedQueue<Integer> wq = new WeightedRandomizedQueue<>();
+            for (int ix = 0; ix < items.length; ix++) wq.enqueue(items[ix], weights[ix]);
+            long sum = 0;
+            while (!wq.isEmpty()) sum = 31 * sum + wq.dequeue();
+            return sum;
+        }
+    }
+
+    // queue of size items, 1024 samples per run
+    public static class RandomizedQueueSample implements Workload {
+        static final int OPS = 1024;
+        private RandomizedQueue<Integer> rq;
+
+        public void setup(int size, long seed) {
+            StdRandom.setSeed(seed);
+            this.rq = new RandomizedQueue<>();
+            for (int ix = 0; ix < size; ix++) rq.enqueue(ix);
+        }
+
+        public Object run() {
+            long sum = 0;
+            for (int ix = 0; ix < OPS; ix++) sum += rq.sample();
+            return sum;
+        }
+    }
+
+    // ditto, weighted, each sample preceded by the update of the weight of a random item (dispatcher-like)
+    public static class WeightedRandomizedQueueSample implements Workload {
+        private WeightedRandomizedQueue<Integer> wq;
+        private Integer[] items;
+        private Random rnd;
+
+        public void setup(int size, long seed) {
+            StdRandom.setSeed(seed);
+            this.rnd = new Random(seed);
+            this.wq = new WeightedRandomizedQueue<>();
+            this.items = new Integer[size];
+            for (int ix = 0; ix < size; ix++) {
+                items[ix] = ix;
+                wq.enqueue(items[ix], 1.0 + 99.0 * rnd.nextDouble());
+            }
+        }
+
+        public Object run() {
+            long sum = 0;
+            for (int ix = 0; ix < RandomizedQueueSample.OPS; ix++) {
+                wq.setWeight(items[rnd.nextInt(items.length)], 1.0 + 99.0 * rnd.nextDouble());
+                sum += wq.sample();
+            }
+            return sum;
+        }
+    }
+
+    /*
+     * Deque, scheduler-like traffic: size items pushed at the back, one in four popped back right away (owner),
+     * then drained from both ends (owner at the back, thief at the front).
+     */
+    public static class DequeRing implements Workload {
+        Integer[] items;
+
+        public void setup(int size, long seed) {
+            this.items = new Integer[size];
+            for (int ix = 0; ix < size; ix++) items[ix] = ix;
+        }
+
+        public Object run() {
+            Deque<Integer> dq = new Deque<>();
+            long sum = 0;
+            for (int ix = 0; ix < items.length; ix++) {
+                dq.addLast(items[ix]);
+                if ((ix & 3) == 3) sum += dq.removeLast();
+            }
+            while (!dq.isEmpty()) {
+                sum = 31 * sum + dq.removeLast();
+                if (!dq.isEmpty()) sum = 31 * sum + dq.removeFirst();
+            }
+            return sum;
+        }
+    }
+
+    // ditto, on a linked deque (one node allocated per item, as the former Deque) for comparison
+    public static class DequeLinked extends DequeRing {
+        public Object run() {
+            LinkedList<Integer> dq = new LinkedList<>();
+            long sum = 0;
+            for (int ix = 0; ix < items.length; ix++) {
+                dq.addLast(items[ix]);
+                if ((ix & 3) == 3) sum += dq.removeLast();
+            }
+            while (!dq.isEmpty()) {
+                sum = 31 * sum + dq.removeLast();
+                if (!dq.isEmpty()) sum = 31 * sum + dq.removeFirst();
+            }
+            return sum;
+        }
+    }
+
+    // size distinct points, about a tenth of them on segments of 5 points, the others uniform
+    public static class FastCollinear implements Workload {
+        private static final int MAX_COORD = 32768;
+        Point[] points;
+
+        public void setup(int size, long seed) {
+            Random rnd = new Random(seed);
+            HashSet<Long> seen = new HashSet<>();
+            this.points = new Point[size];
+            int num = 0;
+            while (num < size / 10 - 4) {
+                int x = rnd.nextInt(MAX_COORD / 2), y = rnd.nextInt(MAX_COORD / 2);
+                int dx = 1 + rnd.nextInt(64), dy = rnd.nextInt(129) - 64;
+                if (y + 4 * dy < 0) dy = -dy;
+                for (int k = 0; k < 5; k++) {
+                    num = add(seen, x + k * dx, y + k * dy, num);
+                }
+            }
+            while (num < size) num = add(seen, rnd.nextInt(MAX_COORD), rnd.nextInt(MAX_COORD), num);
+        }
+
+        public Object run() {
+            return new FastCollinearPoints(points).numberOfSegments();
+        }
+
+        private int add(HashSet<Long> seen, int x, int y, int num) {
+            if (!seen.add(((long) x << 32) | y)) return num;
+            points[num] = new Point(x, y);
+            return num + 1;
+        }
+    }
+
+    // ditto, anchors processed in parallel on the common pool
+    public static class FastCollinearParallel extends FastCollinear {
+        public Object run() {
+            return new FastCollinearPoints(points, ForkJoinPool.commonPool()).numberOfSegments();
+        }
+    }
+
+    // ditto, on a packed point set (conversion included)
+    public static class FastCollinearPointSet extends FastCollinear {
+        public Object run() {
+            return new FastCollinearPoints(new PointSet(points)).numberOfSegments();
+        }
+    }
+
+    // ditto, exact slopes hashed (O(n^2)) instead of sorted by (double) slope (O(n^2 log n))
+    public static class HashCollinear extends FastCollinear {
+        public Object run() {
+            return new HashCollinearPoints(points).numberOfSegments();
+        }
+    }
+
+    // ditto, incremental: the index built one point at a time (segments kept current after each point)
+    public static class CollinearIndexAdd extends FastCollinear {
+        public Object run() {
+            CollinearIndex index = new CollinearIndex();
+            for (Point p : points) index.add(p);
+            return index.numberOfSegments();
+        }
+    }
+
+    // 4-by-4 slider puzzle, size random moves away from the goal
+    public static class SliderSolver implements Workload {
+        private static final int N = 4;
+        private Board initial;
+
+        public void setup(int size, long seed) {
+            Random rnd = new Random(seed);
+            int[][] tiles = new int[N][N];
+            for (int ix = 0; ix < N * N - 1; ix++) tiles[ix / N][ix % N] = ix + 1;
+            int row = N - 1, col = N - 1, prev = -1;
+            int[][] moves = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+            for (int k = 0; k < size; ) {
+                int m = rnd.nextInt(4);
+                int r = row + moves[m][0], c = col + moves[m][1];
+                if (r < 0 || r >= N || c < 0 || c >= N || (m ^ 1) == prev) continue;
+                tiles[row][col] = tiles[r][c];
+                tiles[r][c] = 0;
+                row = r;
+                col = c;
+                prev = m;
+                k++;
+            }
+            this.initial = new Board(tiles);
+        }
+
+        public Object run() {
+            return new Solver(initial).moves();
+        }
+    }
+
+    // tree of size random points in the unit square, queries cycle through 1024 random points
+    public static class KdTreeNearest implements Workload {
+        static final int QUERIES = 1024;
+        KdTree tree;
+        Point2D[] queries;
+        int next;
+
+        public void setup(int size, long seed) {
+            Random rnd = new Random(seed);
+            this.tree = new KdTree();
+            for (int ix = 0; ix < size; ix++) tree.insert(new Point2D(rnd.nextDouble(), rnd.nextDouble()));
+            this.queries = new Point2D[QUERIES];
+            for (int ix = 0; ix < QUERIES; ix++) queries[ix] = new Point2D(rnd.nextDouble(), rnd.nextDouble());
+        }
+
+        public Object run() {
+            return tree.nearest(queries[next++ & (QUERIES - 1)]);
+        }
+    }
+
+    // ditto, range query of a square of side 0.05 centered on the query point
+    public static class KdTreeRange extends KdTreeNearest {
+        private static final double HALF_SIDE = 0.025;
+
+        public Object run() {
+            Point2D p = queries[next++ & (QUERIES - 1)];
+            RectHV rect = new RectHV(Math.max(0.0, p.x() - HALF_SIDE), Math.max(0.0, p.y() - HALF_SIDE),
+                                     Math.min(1.0, p.x() + HALF_SIDE), Math.min(1.0, p.y() + HALF_SIDE));
+            int num = 0;
+            for (Point2D q : tree.range(rect)) num++;
+            return num;
+        }
+    }
+
+    // random rooted DAG of size vertices (each vertex but the root has 1 or 2 hypernyms), 16 queries per run
+    public static class SapLength implements Workload {
+        private static final int QUERIES = 16;
+        private Digraph dag;
+        private int[] vs, ws;
+
+        public void setup(int size, long seed) {
+            Random rnd = new Random(seed);
+            this.dag = new Digraph(size);
+            for (int v = 1; v < size; v++) {
+                int u = rnd.nextInt(v);
+                dag.addEdge(v, u);
+                int w = rnd.nextInt(v);
+                if (w != u && rnd.nextBoolean()) dag.addEdge(v, w);
+            }
+            this.vs = new int[QUERIES];
+            this.ws = new int[QUERIES];
+            for (int ix = 0; ix < QUERIES; ix++) {
+                vs[ix] = rnd.nextInt(size);
+                ws[ix] = rnd.nextInt(size);
+            }
+        }
+
+        public Object run() {
+            SAP sap = new SAP(dag);
+            int sum = 0;
+            for (int ix = 0; ix < QUERIES; ix++) sum += sap.length(vs[ix], ws[ix]);
+            return sum;
+        }
+    }
+
+    // size-by-size random picture
+    public static class SeamCarverVerticalSeam implements Workload {
+        private Picture picture;
+
+        public void setup(int size, long seed) {
+            Random rnd = new Random(seed);
+            this.picture = new Picture(size, size);
+            for (int col = 0; col < size; col++) {
+                for (int row = 0; row < size; row++) picture.setRGB(col, row, rnd.nextInt(1 << 24));
+            }
+        }
+
+        public Object run() {
+            return new SeamCarver(picture).findVerticalSeam();
+        }
+    }
+
+    // random division of size teams (written to a temporary file, as the API reads a file), all teams checked
+    public static class BaseballEliminated implements Workload {
+        private String filename;
+
+        public void setup(int size, long seed) throws IOException {
+            Random rnd = new Random(seed);
+            int[][] games = new int[size][size];
+            int[] rem = new int[size];
+            for (int i = 0; i < size; i++) {
+                for (int j = i + 1; j < size; j++) {
+                    games[i][j] = games[j][i] = rnd.nextInt(8);
+                    rem[i] += games[i][j];
+                    rem[j] += games[i][j];
+                }
+            }
+            StringBuilder sb = new StringBuilder().append(size).append('\n');
+            for (int i = 0; i < size; i++) {
+                int played = 80 + rnd.nextInt(20), wins = rnd.nextInt(played + 1);
+                sb.append("Team").append(i).append(' ').append(wins).append(' ').append(played - wins)
+                  .append(' ').append(rem[i]);
+                for (int j = 0; j < size; j++) sb.append(' ').append(games[i][j]);
+                sb.append('\n');
+            }
+            File file = File.createTempFile("division", ".txt");
+            file.deleteOnExit();
+            Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.US_ASCII));
+            this.filename = file.getPath();
+        }
+
+        public Object run() {
+            BaseballElimination division = new BaseballElimination(filename);
+            int num = 0;
+            for (String team : division.teams()) {
+                if (division.isEliminated(team)) num++;
+            }
+            return num;
+        }
+    }
+
+    // dictionary of size words (random walks on random boards, 3 to 8 letters), random 4-by-4 board, no Q
+    public static class BoggleAllValidWords implements Workload {
+        private static final int N = 4;
+        private static final String LETTERS = "ABCDEFGHIJKLMNOPRSTUVWXYZ";
+        private BoggleSolver solver;
+        private BoggleBoard board;
+
+        public void setup(int size, long seed) {
+            Random rnd = new Random(seed);
+            String[] dictionary = new String[size];
+            for (int ix = 0; ix < size; ix++) dictionary[ix] = walk(randomBoard(rnd), 3 + rnd.nextInt(6), rnd);
+            this.solver = new BoggleSolver(dictionary);
+            this.board = new BoggleBoard(randomBoard(rnd));
+        }
+
+        public Object run() {
+            int num = 0;
+            for (String word : solver.getAllValidWords(board)) num++;
+            return num;
+        }
+
+        private static char[][] randomBoard(Random rnd) {
+            char[][] letters = new char[N][N];
+            for (int r = 0; r < N; r++) {
+                for (int c = 0; c < N; c++) letters[r][c] = LETTERS.charAt(rnd.nextInt(LETTERS.length()));
+            }
+            return letters;
+        }
+
+        // word along a random self-avoiding path (may stop short when stuck)
+        private static String walk(char[][] letters, int len, Random rnd) {
+            boolean[][] used = new boolean[N][N];
+            int r = rnd.nextInt(N), c = rnd.nextInt(N);
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                used[r][c] = true;
+                sb.append(letters[r][c]);
+                if (sb.length() == len) break;
+                int nr = -1, nc = -1, cnt = 0;
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        int rr = r + dr, cc = c + dc;
+                        if (rr < 0 || rr >= N || cc < 0 || cc >= N || used[rr][cc]) continue;
+                        if (rnd.nextInt(++cnt) == 0) {
+                            nr = rr;
+                            nc = cc;
+                        }
+                    }
+                }
+                if (cnt == 0) break;
+                r = nr;
+                c = nc;
+            }
+            return sb.toString();
+        }
+    }
+
+    // Burrows-Wheeler transform then move-to-front encoding of a text of size bytes (skewed letters distribution)
+    public static class BwtMtf implements Workload {
+        private byte[] text;
+
+        public void setup(int size, long seed) {
+            Random rnd = new Random(seed);
+            this.text = new byte[size];
+            for (int ix = 0; ix < size; ix++) {
+                text[ix] = (byte) ('a' + Math.min(25, (int) (-4.0 * Math.log(1.0 - rnd.nextDouble()))));
+            }
+        }
+
+        public Object run() {
+            byte[] bwt = pipe(text, BurrowsWheeler::transform);
+            return pipe(bwt, MoveToFront::encode).length;
+        }
+
+        /*
+         * Runs given filter with standard input/output redirected from/to memory.
+         * BinaryStdIn/BinaryStdOut wrap System.in/System.out lazily, on first use after close(), hence the closing
+         * (the empty stream keeps close() from reading ahead the real standard input).
+         */
+        private static byte[] pipe(byte[] input, Runnable filter) {
+            InputStream stdin = System.in;
+            PrintStream stdout = System.out;
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length + 16);
+            try {
+                System.setIn(new ByteArrayInputStream(new byte[0]));
+                BinaryStdIn.close();
+                System.setIn(new ByteArrayInputStream(input));
+                System.setOut(new PrintStream(out));
+                filter.run();
+                BinaryStdOut.close();
+            }
+            finally {
+                System.setIn(stdin);
+                System.setOut(stdout);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Param;
+
+/*
+ * One benchmark per hot path, see Workloads for what is actually run.
+ */
+public class HotPaths {
+
+    // Percolation.open: one trial on an n-by-n grid (new system, open random sites until it percolates)
+    public static class PercolationOpen extends WorkloadBenchmark {
+        @Param({ "100", "500", "2000" })
+        public int size;
+
+        protected String workload() {
+            return "PercolationOpen";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // RandomizedQueue: enqueue size items, then dequeue them all
+    public static class RandomizedQueueDequeue extends WorkloadBenchmark {
+        @Param({ "1000", "100000", "1000000" })
+        public int size;
+
+        protected String workload() {
+            return "RandomizedQueueDequeue";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // WeightedRandomizedQueue: same as RandomizedQueueDequeue, random weights
+    public static class WeightedRandomizedQueueDequeue extends WorkloadBenchmark {
+        @Param({ "1000", "100000", "1000000" })
+        public int size;
+
+        protected String workload() {
+            return "WeightedRandomizedQueueDequeue";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // RandomizedQueue.sample: 1024 samples out of size items
+    public static class RandomizedQueueSample extends WorkloadBenchmark {
+        @Param({ "1000", "100000", "1000000" })
+        public int size;
+
+        protected String workload() {
+            return "RandomizedQueueSample";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // WeightedRandomizedQueue: 1024 (weight update + weighted sample) out of size items
+    public static class WeightedRandomizedQueueSample extends WorkloadBenchmark {
+        @Param({ "1000", "100000", "1000000" })
+        public int size;
+
+        protected String workload() {
+            return "WeightedRandomizedQueueSample";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    /*
+     * Deque: size items through a work-stealing like pattern, ring buffer vs. linked nodes
+     * (run with -prof gc to compare the allocation rates, gc.alloc.rate.norm being in bytes per run)
+     */
+    public static class DequeRing extends WorkloadBenchmark {
+        @Param({ "1000", "100000", "1000000" })
+        public int size;
+
+        protected String workload() {
+            return "DequeRing";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    public static class DequeLinked extends WorkloadBenchmark {
+        @Param({ "1000", "100000", "1000000" })
+        public int size;
+
+        protected String workload() {
+            return "DequeLinked";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // FastCollinearPoints: all segments among size points (about a tenth of them on segments of 4+ points)
+    public static class FastCollinear extends WorkloadBenchmark {
+        @Param({ "100", "1000", "4000" })
+        public int size;
+
+        protected String workload() {
+            return "FastCollinear";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // ditto, parallel mode (common pool, scales with the number of cores)
+    public static class FastCollinearParallel extends WorkloadBenchmark {
+        @Param({ "100", "1000", "4000" })
+        public int size;
+
+        protected String workload() {
+            return "FastCollinearParallel";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // ditto, PointSet (primitive slopes and sorts)
+    public static class FastCollinearPointSet extends WorkloadBenchmark {
+        @Param({ "100", "1000", "4000" })
+        public int size;
+
+        protected String workload() {
+            return "FastCollinearPointSet";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // ditto, HashCollinearPoints
+    public static class HashCollinear extends WorkloadBenchmark {
+        @Param({ "100", "1000", "4000" })
+        public int size;
+
+        protected String workload() {
+            return "HashCollinear";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // ditto, CollinearIndex: size insertions (O(n^2) memory, hence smaller sizes)
+    public static class CollinearIndexAdd extends WorkloadBenchmark {
+        @Param({ "100", "1000", "2000" })
+        public int size;
+
+        protected String workload() {
+            return "CollinearIndexAdd";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // Solver: 4-by-4 board, size random moves away from the goal
+    public static class SliderSolver extends WorkloadBenchmark {
+        @Param({ "10", "20", "30" })
+        public int size;
+
+        protected String workload() {
+            return "SliderSolver";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // KdTree.nearest: one query on a tree of size random points
+    public static class KdTreeNearest extends WorkloadBenchmark {
+        @Param({ "1000", "100000", "1000000" })
+        public int size;
+
+        protected String workload() {
+            return "KdTreeNearest";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // KdTree.range: one query (square of side 0.05) on a tree of size random points
+    public static class KdTreeRange extends WorkloadBenchmark {
+        @Param({ "1000", "100000", "1000000" })
+        public int size;
+
+        protected String workload() {
+            return "KdTreeRange";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // SAP.length: 16 queries on a new SAP (no cache hit) over a random rooted DAG of size vertices
+    public static class SapLength extends WorkloadBenchmark {
+        @Param({ "1000", "10000", "100000" })
+        public int size;
+
+        protected String workload() {
+            return "SapLength";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // SeamCarver.findVerticalSeam: size-by-size random picture
+    public static class SeamCarverVerticalSeam extends WorkloadBenchmark {
+        @Param({ "100", "500", "1000" })
+        public int size;
+
+        protected String workload() {
+            return "SeamCarverVerticalSeam";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // BaseballElimination.isEliminated: all the teams of a random division of size teams
+    public static class BaseballEliminated extends WorkloadBenchmark {
+        @Param({ "5", "12", "24" })
+        public int size;
+
+        protected String workload() {
+            return "BaseballEliminated";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // BoggleSolver.getAllValidWords: random 4-by-4 board, dictionary of size words
+    public static class BoggleAllValidWords extends WorkloadBenchmark {
+        @Param({ "1000", "10000", "100000" })
+        public int size;
+
+        protected String workload() {
+            return "BoggleAllValidWords";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+
+    // BurrowsWheeler.transform then MoveToFront.encode, on a text of size bytes
+    public static class BwtMtf extends WorkloadBenchmark {
+        @Param({ "1000", "100000", "1000000" })
+        public int size;
+
+        protected String workload() {
+            return "BwtMtf";
+        }
+
+        protected int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package bench;
+
+/*
+ * A hot path of one of the assignments.
+ *
+ * JMH refuses benchmark classes in the default package, while the assignments' classes live there (and cannot be
+ * imported from a named package): implementations are thus in the default package (see Workloads) and loaded
+ * by name, once per trial; the benchmarks then only go through this interface.
+ */
+public interface Workload {
+
+    // builds the input, of given size (meaning depends on the workload), deterministic for a given seed
+    void setup(int size, long seed) throws Exception;
+
+    // one run of the hot path, returns a result which depends on the whole computation
+    Object run() throws Exception;
+
+    static Workload load(String name) throws ReflectiveOperationException {
+        return (Workload) Class.forName("Workloads$" + name).getDeclaredConstructor().newInstance();
+    }
+}
@@ -0,0 +1,46 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Common settings: one Workload per benchmark, set up once per trial with a fixed seed.
+ * Subclasses name their workload and declare its size as a @Param.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class WorkloadBenchmark {
+    static final long SEED = 20200201L;
+
+    private Workload workload;
+
+    protected abstract String workload();
+
+    protected abstract int size();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.workload = Workload.load(workload());
+        this.workload.setup(size(), SEED);
+    }
+
+    @Benchmark
+    public Object run() throws Exception {
+        return this.workload.run();
+    }
+}
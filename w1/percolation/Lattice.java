@@ -0,0 +1,155 @@
+/* *****************************************************************************
+ *  Name: Pascal P.
+ *  Date: Feb 2020
+ *  Description: Assign 1 - Princeton Algorithms
+ **************************************************************************** */
+
+/*
+ * Geometry of a percolation system: n sites per dimension (2D or 3D), percolation from the first layer (top row)
+ * to the last one (bottom row).
+ *
+ * Sites are laid out on a flat index space padded with a border of sites which never open, so that the neighbors
+ * of any (real) site are at constant offsets, without bounds check:
+ * - column 0 is padding (and also acts as the column n + 1 of the previous row),
+ * - row 0 and n + 1 (2D), layer 0 and n + 1 (3D) are padding.
+ *
+ * The neighbor offsets may depend on the class of a site (ix & classMask), e.g. for the honeycomb lattice.
+ */
+public final class Lattice {
+    private final String name;
+    private final int n;             // number of sites per dimension
+    private final int[] strides;     // flat index stride of each dimension: column, row, (layer)
+    private final int size;          // size of the flat index space (incl. padding)
+    private final int[][] offsets;   // neighbor offsets, per class of site
+    private final int classMask;
+    private final int topEnd;        // flat index < topEnd => in first layer (or padding)
+    private final int bottomStart;   // flat index >= bottomStart => in last layer (or padding)
+
+    private Lattice(String name, int n, int[] strides, int[][] offsets, int classMask) {
+        this.name = name;
+        this.n = n;
+        this.strides = strides;
+        this.offsets = offsets;
+        this.classMask = classMask;
+
+        int last = strides.length - 1;
+        this.topEnd = 2 * strides[last];
+        this.bottomStart = n * strides[last];
+        this.size = (n + 2) * strides[last];
+    }
+
+    // n-by-n square lattice, 4 neighbors (left, right, up, down)
+    public static Lattice square(int n) {
+        int w = width(n, false);
+        return new Lattice("square", n, new int[]{1, w}, new int[][]{{-w, w, -1, 1}}, 0);
+    }
+
+    // n-by-n triangular lattice, 6 neighbors (square + up-right and down-left diagonals)
+    public static Lattice triangular(int n) {
+        int w = width(n, false);
+        return new Lattice("triangular", n, new int[]{1, w}, new int[][]{{-w, w, -1, 1, 1 - w, w - 1}}, 0);
+    }
+
+    /*
+     * n-by-n honeycomb lattice, 3 neighbors, as a brick wall: left, right and either up or down
+     * depending on the parity of row + col.
+     * The width is odd, so that this parity is the one of the flat index.
+     */
+    public static Lattice honeycomb(int n) {
+        int w = width(n, true);
+        return new Lattice("honeycomb", n, new int[]{1, w}, new int[][]{{-1, 1, -w}, {-1, 1, w}}, 1);
+    }
+
+    // n-by-n-by-n cubic lattice, 6 neighbors
+    public static Lattice cubic(int n) {
+        int w = width(n, false);
+        checkSize((long) (n + 2) * (n + 2) * w);
+        int p = (n + 2) * w;
+        return new Lattice("cubic", n, new int[]{1, w, p}, new int[][]{{-p, p, -w, w, -1, 1}}, 0);
+    }
+
+    // number of (real) sites
+    public int numberOfSites() {
+        int num = 1;
+        for (int d = 0; d < this.strides.length; d++) num *= this.n;
+        return num;
+    }
+
+    // number of sites per dimension
+    public int n() {
+        return this.n;
+    }
+
+    public String toString() {
+        return this.name + "(" + this.n + ")";
+    }
+
+    /*
+     * flat index of given site, 0 <= site < numberOfSites(), with site = (row - 1) * n + (col - 1) in 2D
+     * and site = ((layer - 1) * n + (row - 1)) * n + (col - 1) in 3D.
+     */
+    int index(int site) {
+        int ix = 0;
+        for (int d = 0; d < this.strides.length; d++) {
+            ix += (site % this.n + 1) * this.strides[d];
+            site /= this.n;
+        }
+        return ix;
+    }
+
+    // site at given flat index (not padding), reverse of index(site)
+    int site(int ix) {
+        int site = 0;
+        for (int d = this.strides.length - 1; d >= 0; d--) {
+            site = site * this.n + ix / this.strides[d] - 1;
+            ix %= this.strides[d];
+        }
+        return site;
+    }
+
+    // flat indexes of all the sites, in site order
+    int[] indexes() {
+        int[] ixes = new int[numberOfSites()];
+        for (int site = 0; site < ixes.length; site++) ixes[site] = index(site);
+        return ixes;
+    }
+
+    // flat index of site (row, col), 1-based, 2D only
+    int index(int row, int col) {
+        return row * this.strides[1] + col;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    int[][] offsets() {
+        return this.offsets;
+    }
+
+    int classMask() {
+        return this.classMask;
+    }
+
+    int topEnd() {
+        return this.topEnd;
+    }
+
+    int bottomStart() {
+        return this.bottomStart;
+    }
+
+    private static int width(int n, boolean odd) {
+        if (n <= 0) throw new IllegalArgumentException("size must be >= 1");
+
+        int w = n + 1;
+        if (odd && (w & 1) == 0) w++;
+        checkSize((long) (n + 2) * w);
+        return w;
+    }
+
+    private static void checkSize(long size) {
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("lattice too large: " + size + " > " + Integer.MAX_VALUE + " sites");
+    }
+}
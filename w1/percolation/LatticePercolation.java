@@ -0,0 +1,392 @@
+/* *****************************************************************************
+ *  Name: Pascal P.
+ *  Date: Feb 2020
+ *  Description: Assign 1 - Princeton Algorithms
+ **************************************************************************** */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ * Percolation system on any Lattice (see Percolation for the n-by-n square lattice, with (row, col) addressing).
+ * Sites are addressed by site number 0 <= site < lattice.numberOfSites().
+ */
+public class LatticePercolation {
+    private static final int TOP = 1;           // (root only) cluster connected to first layer
+    private static final int BOTTOM = 2;        // (root only) cluster connected to last layer
+    private static final int RANK_SHIFT = 2;    // (root only) rank stored above the flags
+    private static final int BLOCK_SHIFT = 12;  // openAll(): sites are opened by block of 4096 flat indexes
+
+    private final Lattice lattice;
+    private final int numSites;
+    private final int[][] offsets;              // copied from the lattice, used on each open
+    private final int classMask, topEnd, bottomStart;
+    private int numOpenSites = 0;
+    private boolean percolated = false;
+
+    /*
+     * Addressing backwash problem, with a single union-find structure:
+     * instead of virtual top/bottom sites, each root carries "connected to top" and "connected to bottom" flags.
+     *
+     * Union-find forest (path halving + union by rank) and open bits are kept in a SiteStore, on the flat index
+     * space of the lattice, a root entry being ~(rank << RANK_SHIFT | flags) (always < 0), a non-root entry being
+     * the index of its parent (>= 0). Padding sites never open, hence are never united.
+     */
+    private final SiteStore store;
+
+    /*
+     * Event tracking (only once a listener is registered): the members of each cluster are kept in a circular list
+     * (next), spliced on union, so that when a cluster gets connected to the top all its sites are marked full
+     * (and notified) at once. Each site becomes full once => O(1) amortized per open, and isFull() is a bit test.
+     */
+    private final ArrayList<PercolationListener> listeners = new ArrayList<PercolationListener>();
+    private int[] next;
+    private long[] full;
+
+    /*
+     * Cluster statistics (only once turned on, by PercolationSweep): the size of each cluster at its root, the size
+     * of the largest cluster and the sum of the squared cluster sizes, updated on open and union.
+     */
+    private int[] sizes;
+    private int maxSize;
+    private long sumSq;
+
+    // creates a system on given lattice, with all sites initially blocked
+    public LatticePercolation(Lattice lattice) {
+        this(lattice, false);
+    }
+
+    // ditto, with storage off the java heap when offHeap is true (large systems)
+    public LatticePercolation(Lattice lattice, boolean offHeap) {
+        if (lattice == null) throw new IllegalArgumentException("lattice cannot be null");
+
+        this.lattice = lattice;
+        this.numSites = lattice.numberOfSites();
+        this.offsets = lattice.offsets();
+        this.classMask = lattice.classMask();
+        this.topEnd = lattice.topEnd();
+        this.bottomStart = lattice.bottomStart();
+        this.store = offHeap ? SiteStore.offHeap(lattice.size()) : SiteStore.onHeap(lattice.size());
+    }
+
+    // test client (optional)
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);   // by default: 16
+
+        // a straight line of sites along the last dimension percolates on any of these lattices
+        for (Lattice lattice : new Lattice[]{ Lattice.square(n), Lattice.triangular(n), Lattice.cubic(n) }) {
+            LatticePercolation perco = new LatticePercolation(lattice);
+            int stride = lattice.numberOfSites() / n;
+            for (int ix = 0; ix < n; ix++) {
+                assert !perco.percolates() : lattice + " cannot percolate yet";
+                perco.open(ix * stride);
+            }
+            assert perco.percolates() : lattice + " should percolate";
+            assert perco.isFull((n - 1) * stride);
+            assert perco.numberOfOpenSites() == n;
+        }
+
+        // triangular lattice: a diagonal (up-right to down-left) percolates, but not on the square lattice
+        LatticePercolation tri = new LatticePercolation(Lattice.triangular(n));
+        LatticePercolation sq = new LatticePercolation(Lattice.square(n));
+        for (int ix = 0; ix < n; ix++) {
+            tri.open(ix * n + (n - 1 - ix));
+            sq.open(ix * n + (n - 1 - ix));
+        }
+        assert tri.percolates();
+        assert sq.percolates() == (n == 1);
+
+        // honeycomb lattice: a single column cannot percolate (every other vertical link is missing)
+        if (n > 2) {
+            LatticePercolation hc = new LatticePercolation(Lattice.honeycomb(n));
+            for (int ix = 0; ix < n; ix++) hc.open(ix * n);
+            assert !hc.percolates();
+            for (int ix = 0; ix < n; ix++) hc.open(ix * n + 1);   // ... but two adjacent columns do
+            assert hc.percolates();
+        }
+
+        // batch open (any order, duplicates allowed) == open one by one
+        LatticePercolation one = new LatticePercolation(Lattice.square(n));
+        LatticePercolation all = new LatticePercolation(Lattice.square(n));
+        int[] sites = new int[n * n];
+        for (int ix = 0; ix < sites.length; ix++) sites[ix] = (int) ((ix * 7919L) % (n * n));  // some sites twice
+        for (int ix = 0; ix < sites.length / 2; ix++) one.open(sites[ix]);
+        all.openAll(Arrays.copyOf(sites, sites.length / 2));
+        assert one.numberOfOpenSites() == all.numberOfOpenSites();
+        assert one.percolates() == all.percolates();
+        for (int ix = 0; ix < n * n; ix++) assert one.isFull(ix) == all.isFull(ix) : "site " + ix + " differs";
+
+        // cluster statistics turned on a non-empty system == turned on from the start
+        LatticePercolation early = new LatticePercolation(Lattice.square(n));
+        early.trackClusters();
+        for (int ix = 0; ix < sites.length / 2; ix++) early.open(sites[ix]);
+        one.trackClusters();
+        assert one.largestCluster() == early.largestCluster();
+        assert one.sumOfSquaredClusterSizes() == early.sumOfSquaredClusterSizes();
+
+        // events: first full step of each site and percolation step, vs. isFull() polling
+        final int[] fullAt = new int[n * n];
+        final int[] percolatedAt = new int[1];
+        LatticePercolation evt = new LatticePercolation(Lattice.square(n));
+        LatticePercolation poll = new LatticePercolation(Lattice.square(n));
+        evt.open(sites[0]);  // listener registered on a non-empty system
+        poll.open(sites[0]);
+        evt.addListener(new PercolationListener() {
+            public void percolated(int step) {
+                assert percolatedAt[0] == 0 : "percolated twice";
+                percolatedAt[0] = step;
+            }
+
+            public void siteFull(int site, int step) {
+                assert fullAt[site] == 0 : "site " + site + " full twice";
+                fullAt[site] = step;
+            }
+        });
+        for (int ix = 0; ix < n * n; ix++) fullAt[ix] = poll.isFull(ix) ? -1 : 0;
+        for (int ix = 1; ix < sites.length; ix++) {
+            evt.open(sites[ix]);
+            poll.open(sites[ix]);
+            assert poll.percolates() == (percolatedAt[0] != 0) : "percolation event missed at step " + ix;
+            for (int jx = 0; jx < n * n; jx++) {
+                assert poll.isFull(jx) == evt.isFull(jx);
+                assert poll.isFull(jx) == (fullAt[jx] != 0) : "site full event missed: " + jx;
+            }
+        }
+    }
+
+    // opens given site if it is not open already
+    public void open(int site) {
+        checkSite(site, "open");
+        openIndex(this.lattice.index(site));
+    }
+
+    /*
+     * Opens all given sites (batch): sites are checked once, then opened block of flat indexes by block
+     * (one counting sort pass on the block number, O(k)), so that union-find accesses follow the memory layout
+     * rather than the (random) order of the given sites.
+     * Only the final state (open, full sites, percolation) is the same as when opening the sites one by one in the
+     * given order: the sites are opened, hence the listener events fired, in block order, and the system may first
+     * percolate on another site than it would in the given order.
+     */
+    public void openAll(int[] sites) {
+        if (sites == null) throw new IllegalArgumentException("sites cannot be null");
+
+        int[] ixes = new int[sites.length];
+        int[] count = new int[(this.lattice.size() >>> BLOCK_SHIFT) + 2];
+        for (int ix = 0; ix < sites.length; ix++) {
+            int site = sites[ix];
+            if (site < 0 || site >= this.numSites) checkSite(site, "openAll");
+            ixes[ix] = this.lattice.index(site);
+            count[(ixes[ix] >>> BLOCK_SHIFT) + 1]++;
+        }
+        for (int b = 1; b < count.length; b++) count[b] += count[b - 1];
+
+        int[] sorted = new int[ixes.length];
+        for (int ix : ixes) sorted[count[ix >>> BLOCK_SHIFT]++] = ix;
+        for (int ix : sorted) openIndex(ix);
+    }
+
+    // is given site open?
+    public boolean isOpen(int site) {
+        checkSite(site, "isOpen");
+        return this.store.isOpen(this.lattice.index(site));
+    }
+
+    // is given site full? which means it is connected to the first layer
+    public boolean isFull(int site) {
+        checkSite(site, "isFull");
+        return isFullIndex(this.lattice.index(site));
+    }
+
+    // returns the number of open sites
+    public int numberOfOpenSites() {
+        return this.numOpenSites;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return this.percolated;
+    }
+
+    public Lattice lattice() {
+        return this.lattice;
+    }
+
+    /*
+     * Registers a listener of the percolation and site-full events, from now on.
+     * The first registration turns event tracking on, which costs one int per site (plus one bit).
+     */
+    public void addListener(PercolationListener listener) {
+        if (listener == null) throw new IllegalArgumentException("listener cannot be null");
+
+        if (this.next == null) startTracking();
+        this.listeners.add(listener);
+    }
+
+    // opens the site at flat index ix (not checked)
+    void openIndex(int ix) {
+        if (this.store.isOpen(ix)) return;
+
+        // a blocked site was never united, hence is a root of rank 0
+        int flags = 0;
+        if (ix < this.topEnd) flags |= TOP;
+        if (ix >= this.bottomStart) flags |= BOTTOM;
+        this.store.setOpen(ix);
+        this.store.set(ix, ~flags);
+        this.numOpenSites++;
+        if (this.sizes != null) {
+            this.sizes[ix] = 1;
+            this.sumSq++;
+            if (this.maxSize == 0) this.maxSize = 1;
+        }
+        if (this.next != null) {
+            this.next[ix] = ix;  // singleton cluster
+            if ((flags & TOP) != 0) fill(ix);
+        }
+
+        // check neighbors, keeping track of the root of ix
+        int root = ix;
+        for (int off : this.offsets[ix & this.classMask]) root = this.union(root, ix + off);
+
+        if (!this.percolated && (~this.store.get(root) & (TOP | BOTTOM)) == (TOP | BOTTOM)) {
+            this.percolated = true;
+            for (PercolationListener listener : this.listeners) listener.percolated(this.numOpenSites);
+        }
+    }
+
+    boolean isOpenIndex(int ix) {
+        return this.store.isOpen(ix);
+    }
+
+    boolean isFullIndex(int ix) {
+        if (this.full != null) return (this.full[ix >>> 6] & (1L << ix)) != 0;
+        return this.store.isOpen(ix) && (~this.store.get(find(ix)) & TOP) != 0;
+    }
+
+    // turns the cluster statistics on (see largestCluster()), from the current system
+    void trackClusters() {
+        if (this.sizes != null) return;
+        this.sizes = new int[this.lattice.size()];
+        for (int ix = 0; ix < this.sizes.length; ix++) {
+            if (this.store.isOpen(ix)) this.sizes[find(ix)]++;
+        }
+        for (int ix = 0; ix < this.sizes.length; ix++) {
+            if (!this.store.isOpen(ix) || this.store.get(ix) >= 0) continue;  // roots only
+            this.sumSq += (long) this.sizes[ix] * this.sizes[ix];
+            this.maxSize = Math.max(this.maxSize, this.sizes[ix]);
+        }
+    }
+
+    // size (in sites) of the largest cluster, cluster statistics on
+    int largestCluster() {
+        return this.maxSize;
+    }
+
+    // sum over the clusters of their squared size, cluster statistics on
+    long sumOfSquaredClusterSizes() {
+        return this.sumSq;
+    }
+
+    // blocks all sites again, so that the system can be reused (by PercolationStats, PercolationSweep)
+    // without allocation
+    void reset() {
+        this.store.clear();
+        if (this.full != null) Arrays.fill(this.full, 0L);
+        this.maxSize = 0;
+        this.sumSq = 0;
+        this.numOpenSites = 0;
+        this.percolated = false;
+    }
+
+    private void checkSite(int site, String from) {
+        if (site < 0 || site >= this.numSites)
+            throw new IllegalArgumentException(
+                    " 0 <=  site < " + Integer.toString(this.numSites) + " from: " + from
+                            + " got site: " + Integer.toString(site));
+    }
+
+    // union the cluster of root ri with the site jx, if open, return the root of the union
+    private int union(int ri, int jx) {
+        if (!this.store.isOpen(jx)) return ri;
+
+        int rj = find(jx);
+        if (ri == rj) return ri;
+
+        int ei = ~this.store.get(ri), ej = ~this.store.get(rj);  // rank and flags
+        if (this.next != null) track(ri, rj, ei, ej);
+        int flags = (ei | ej) & (TOP | BOTTOM);
+        int rki = ei >>> RANK_SHIFT, rkj = ej >>> RANK_SHIFT;
+        if (rki < rkj) {
+            this.store.set(ri, rj);
+            this.store.set(rj, ~(ej | flags));
+        }
+        else {
+            this.store.set(rj, ri);
+            this.store.set(ri, ~((ei | flags) + (rki == rkj ? 1 << RANK_SHIFT : 0)));
+        }
+        int root = rki < rkj ? rj : ri;
+        if (this.sizes != null) count(root, ri, rj);
+        return root;
+    }
+
+    // cluster statistics, union of clusters ri and rj (roots) under given root
+    private void count(int root, int ri, int rj) {
+        long si = this.sizes[ri], sj = this.sizes[rj];
+        this.sumSq += 2 * si * sj;  // (si + sj)^2 - si^2 - sj^2
+        this.sizes[root] = (int) (si + sj);
+        if (this.sizes[root] > this.maxSize) this.maxSize = this.sizes[root];
+    }
+
+    // event tracking, union of clusters ri and rj (roots): fill the one not connected to the top if the other one is
+    private void track(int ri, int rj, int ei, int ej) {
+        if (((ei ^ ej) & TOP) != 0) fill((ei & TOP) != 0 ? rj : ri);
+
+        int nxt = this.next[ri];  // splice both circular lists
+        this.next[ri] = this.next[rj];
+        this.next[rj] = nxt;
+    }
+
+    // marks all the sites of the cluster of ix as full (they were not)
+    private void fill(int ix) {
+        int jx = ix;
+        do {
+            this.full[jx >>> 6] |= 1L << jx;
+            for (PercolationListener listener : this.listeners)
+                listener.siteFull(this.lattice.site(jx), this.numOpenSites);
+            jx = this.next[jx];
+        } while (jx != ix);
+    }
+
+    // builds the cluster lists and the full bits of the current system (no event)
+    private void startTracking() {
+        int size = this.lattice.size();
+        this.next = new int[size];
+        this.full = new long[(int) ((size + 63L) >>> 6)];
+        for (int ix = 0; ix < size; ix++) {
+            if (this.store.isOpen(ix)) this.next[ix] = ix;
+        }
+        for (int ix = 0; ix < size; ix++) {
+            if (!this.store.isOpen(ix)) continue;
+            int root = find(ix);
+            if (root != ix) {
+                this.next[ix] = this.next[root];
+                this.next[root] = ix;
+            }
+            if ((~this.store.get(root) & TOP) != 0) this.full[ix >>> 6] |= 1L << ix;
+        }
+    }
+
+    // root of site ix, with path halving
+    private int find(int ix) {
+        int p = this.store.get(ix);
+        while (p >= 0) {
+            int gp = this.store.get(p);
+            if (gp < 0) return p;
+            this.store.set(ix, gp);
+            ix = gp;
+            p = this.store.get(ix);
+        }
+        return ix;
+    }
+
+}
@@ -4,45 +4,28 @@
  *  Description: Assign 1 - Princeton Algorithms
  **************************************************************************** */
 
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
-
+/*
+ * n-by-n square lattice percolation system, (row, col) addressing on top of LatticePercolation.
+ */
 public class Percolation {
-    private boolean[][] site;          // to tell whether site is open or block
-    private final int sz;                    // number of site
-    private int numOpenSites = 0;
-
-    /*
-     * Addressing backwash problem
-     */
-    private final WeightedQuickUnionUF ufTb;
-    private final WeightedQuickUnionUF ufT;
+    private final int sz;                       // number of site (per row/col)
+    private final Lattice lattice;
+    private final LatticePercolation perco;
 
 
     // creates n-by-n site, with all sites initially blocked
     public Percolation(int n) {
+        this(n, false);
+    }
+
+    // ditto, with storage off the java heap when offHeap is true (large systems)
+    public Percolation(int n, boolean offHeap) {
         if (n <= 0)
             throw new IllegalArgumentException("size must be >= 1");
 
-        this.site = new boolean[n][n];
         this.sz = n;
-
-        for (int ix = 0; ix < n; ix++) {
-            for (int jx = 0; jx < n; jx++) {
-                this.site[ix][jx] = false;
-            }
-        }
-
-        int n2 = n * n;
-        ufTb = new WeightedQuickUnionUF(n2 + 2); // add top and bottom virtual site
-        ufT = new WeightedQuickUnionUF(n2 + 1); // add top virtual site (only)
-
-        // connect top virtual site to top row (index 0), bottom virtual site (index n*n + 1) to bottom row
-        n2 += 1;
-        for (int ix = 1; ix <= n; ix++) {
-            ufTb.union(0, ix);           // connect to virtaul top site
-            ufT.union(0, ix);            // ditto
-            ufTb.union(n2, n2 - ix);   // connect to bottom virtual site
-        }
+        this.lattice = Lattice.square(n);
+        this.perco = new LatticePercolation(this.lattice, offHeap);
     }
 
     /*
@@ -55,70 +38,89 @@ public class Percolation {
         int n = Integer.parseInt(args[0]);   // by default: 16
         Percolation perco = new Percolation(n);
 
-        assert perco.site.length == n;
+        assert perco.lattice.numberOfSites() == n * n;
         assert !perco.isFull(1, 1);
         assert perco.numberOfOpenSites() == 0;
 
         int row = 1, col = 1;
         perco.open(row, col);
         assert perco.isOpen(row, col);
+        assert perco.isFull(row, col);
         assert perco.numberOfOpenSites() == 1;
 
-        int n2 = n * n + 1;
-        for (int ix = 1; ix <= n; ix++) {
-            assert perco.ufTb.connected(0, ix);
-            assert perco.ufT.connected(0, ix);
+        if (n > 2) {
+            assert !perco.percolates() : "initial system cannot percolate - but here it does!";
 
-            assert perco.ufTb.connected(n2, n2 - ix);
-        }
+            // open last column, except top site => no full site there, but no backwash either
+            for (int ix = 2; ix <= n; ix++) perco.open(ix, n);
+            assert perco.isOpen(n, n) && !perco.isFull(n, n);
+            assert !perco.percolates();
 
-        assert !perco.ufTb.connected(0, n + 1);
-        assert !perco.percolates() : "initial system cannot percolate - but here it does!";
+            // open first column => percolates
+            for (int ix = 2; ix <= n; ix++) perco.open(ix, 1);
+            assert perco.isFull(n, 1);
+            assert perco.percolates();
+            assert !perco.isFull(n, n) : "backwash detected at: " + n + ", " + n;
+            assert perco.numberOfOpenSites() == 2 * n - 1;
+        }
+        else if (n == 1) {
+            assert perco.percolates();
+        }
 
+        // batch open, with an out of range index => nothing opened
+        Percolation batch = new Percolation(n);
+        try {
+            batch.openAll(new int[]{0, n * n});
+            assert false : "openAll should have thrown";
+        } catch (IllegalArgumentException ex) {
+            assert batch.numberOfOpenSites() == 0;
+        }
+        batch.openAll(new int[]{n * n - 1, 0});
+        assert batch.isOpen(1, 1) && batch.isOpen(n, n);
+
+        // off-heap storage behaves the same
+        Percolation offp = new Percolation(n, true);
+        for (int ix = 1; ix <= n; ix++) offp.open(ix, 1);
+        assert offp.percolates() && offp.isFull(n, 1);
+        assert offp.numberOfOpenSites() == n;
     }
 
     // opens the site (row, col) if it is not open already
     public void open(int row, int col) {
         checkCoord(row, col, "open");
+        this.perco.openIndex(this.lattice.index(row, col));
+    }
 
-        if (!this.isOpen(row, col)) {
-            this.site[row - 1][col - 1] = true;
-            this.numOpenSites++;
-
-            // check neighbors
-            int ix = coordPos(row, col);
-            if (row < this.sz && this.isOpen(row + 1, col))
-                this.updateUf(coordPos(row + 1, col), ix);
-            if (row > 1 && this.isOpen(row - 1, col))
-                this.updateUf(coordPos(row - 1, col), ix);
-            if (col < this.sz && this.isOpen(row, col + 1))
-                this.updateUf(coordPos(row, col + 1), ix);
-            if (col > 1 && this.isOpen(row, col - 1))
-                this.updateUf(coordPos(row, col - 1), ix);
-        }
+    // opens all the sites at given flat indexes: (row - 1) * n + (col - 1), see LatticePercolation.openAll()
+    public void openAll(int[] flatIndexes) {
+        this.perco.openAll(flatIndexes);
+    }
+
+    // registers a listener of the percolation and site-full events (sites numbered as in openAll())
+    public void addListener(PercolationListener listener) {
+        this.perco.addListener(listener);
     }
 
     // is the site (row, col) open?
     public boolean isOpen(int row, int col) {
         checkCoord(row, col, "isOpen");
-        return this.site[row - 1][col - 1];
+        return this.perco.isOpenIndex(this.lattice.index(row, col));
     }
 
     // is the site (row, col) full? which means it is connected to the top
     public boolean isFull(int row, int col) {
         checkCoord(row, col, "isFull");
-        return isOpen(row, col) && ufT.connected(coordPos(row, col), 0);
+        return this.perco.isFullIndex(this.lattice.index(row, col));
     }
 
     // returns the number of open sites
     public int numberOfOpenSites() {
-        return this.numOpenSites;
+        return this.perco.numberOfOpenSites();
     }
 
     // does the system percolate?
     public boolean percolates() {
-        if (this.sz == 1) return this.isOpen(1, 1);
-        return this.ufTb.connected(0, this.sz * this.sz + 1);
+        return this.perco.percolates();
     }
 
     private void checkCoord(int row, int col, String from) {
@@ -132,14 +134,4 @@ public class Percolation {
                             + " got col ix: " + Integer.toString(col));
     }
 
-    private int coordPos(int row, int col) {
-        checkCoord(row, col, "coord_pos"); // row >=1
-        return (row - 1) * this.sz + col;
-    }
-
-    private void updateUf(int src, int dst) {
-        this.ufTb.union(src, dst);
-        this.ufT.union(src, dst);
-    }
-
 }
@@ -0,0 +1,18 @@
+/* *****************************************************************************
+ *  Name: Pascal P.
+ *  Date: Feb 2020
+ *  Description: Assign 1 - Princeton Algorithms
+ **************************************************************************** */
+
+/*
+ * Events of a percolation system (see LatticePercolation.addListener()).
+ * step is the number of open sites when the event occurs, i.e. the step of the opening which triggered it.
+ */
+public interface PercolationListener {
+
+    // the system percolates for the first time
+    void percolated(int step);
+
+    // given site is full for the first time (same site numbering as LatticePercolation / Percolation.openAll())
+    void siteFull(int site, int step);
+}
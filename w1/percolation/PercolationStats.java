@@ -5,37 +5,236 @@
  **************************************************************************** */
 
 import edu.princeton.cs.algs4.StdRandom;
-import edu.princeton.cs.algs4.StdStats;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class PercolationStats {
     private static final double CI_95 = 1.96; // value for 95% confidence interval
-    private final int trials;
-    private final double[] statOpenSites;
-    private double mu = Double.NaN, stdev = Double.NaN;
+    private final Welford stat;               // streaming mean/variance of the fraction of open sites
+
+    /*
+     * Trials are run in parallel (fork-join), each leaf task owning its own SplittableRandom stream.
+     * The split tree only depends on the number of trials (not on the number of cores or on scheduling),
+     * hence the result is reproducible from the seed.
+     */
+    private static final int LEAF_TRIALS = 4;  // number of trials run sequentially by a leaf task
+    private static final int BATCH_TRIALS = 64; // early-stop mode: number of trials between two checks
+
+    /*
+     * Trial driver: sites are opened following a random permutation of the (flat indexes of the) sites, built
+     * on the fly by a partial Fisher-Yates shuffle => exactly one open() per step, no rejection of already open sites.
+     * The system and the permutation are reused across trials (any permutation is a valid starting point
+     * for the shuffle), so that a trial does not allocate.
+     */
+    private static class Trial {
+        private final Lattice lattice;
+        private final LatticePercolation perco;
+        private final int[] sites;   // flat indexes of the sites, in site order (shared, read-only)
+        private final int[] perm;
+
+        Trial(Lattice lattice, int[] sites) {
+            this.lattice = lattice;
+            this.perco = new LatticePercolation(lattice);
+            this.sites = sites;
+            this.perm = new int[sites.length];
+            this.resetPerm();
+        }
+
+        // initial permutation, for the sake of reproducibility (see Scratch)
+        void resetPerm() {
+            System.arraycopy(this.sites, 0, this.perm, 0, this.sites.length);
+        }
+
+        // one trial: open random sites until the system percolates, return the fraction of open sites
+        double run(SplittableRandom rnd) {
+            this.perco.reset();
+            int n2 = this.perm.length, k = 0;
+            while (!this.perco.percolates()) {
+                openNext(k, k + rnd.nextInt(n2 - k));
+                k++;
+            }
+            return 1.0 * k / n2;
+        }
+
+        // ditto, using StdRandom
+        double run() {
+            this.perco.reset();
+            int n2 = this.perm.length, k = 0;
+            while (!this.perco.percolates()) {
+                openNext(k, StdRandom.uniform(k, n2));
+                k++;
+            }
+            return 1.0 * k / n2;
+        }
+
+        // swap k-th and jx-th (k <= jx) entries of the permutation, then open k-th site
+        private void openNext(int k, int jx) {
+            int site = this.perm[jx];
+            this.perm[jx] = this.perm[k];
+            this.perm[k] = site;
+            this.perco.openIndex(site);
+        }
+    }
+
+    // Welford running mean and sum of squared deviations (M2), mergeable (Chan et al.)
+    private static class Welford {
+        private int count;
+        private double mean, m2;
+
+        void add(double x) {
+            count++;
+            double delta = x - mean;
+            mean += delta / count;
+            m2 += delta * (x - mean);
+        }
+
+        void merge(Welford that) {
+            if (that.count == 0) return;
+            int cnt = count + that.count;
+            double delta = that.mean - mean;
+            mean += delta * that.count / cnt;
+            m2 += that.m2 + delta * delta * ((double) count * that.count / cnt);
+            count = cnt;
+        }
+
+        // sample standard deviation, NaN with less than 2 samples
+        double stddev() {
+            return Math.sqrt(m2 / (count - 1));
+        }
+
+        double halfWidth() {
+            return CI_95 * stddev() / Math.sqrt(count);
+        }
+    }
+
+    /*
+     * Trial scratches of one run (one per concurrently running leaf task at most), owned by the run:
+     * nothing is left behind in the pool's threads once the run is over.
+     * The permutation is reset when a leaf task takes a scratch, otherwise the result would depend on which trials
+     * the scratch served before (i.e. on scheduling).
+     */
+    private static class Scratch {
+        private final Lattice lattice;
+        private final int[] sites;
+        private final ConcurrentLinkedQueue<Trial> free = new ConcurrentLinkedQueue<Trial>();
+
+        Scratch(Lattice lattice, int[] sites) {
+            this.lattice = lattice;
+            this.sites = sites;
+        }
+
+        Trial acquire() {
+            Trial trial = free.poll();
+            if (trial == null) return new Trial(lattice, sites);
+            trial.resetPerm();
+            return trial;
+        }
+
+        void release(Trial trial) {
+            free.add(trial);
+        }
+    }
+
+    private static class TrialTask extends RecursiveTask<Welford> {
+        private static final long serialVersionUID = 1L;
+
+        private final Scratch scratch;
+        private final int trials;
+        private final SplittableRandom rnd;
+
+        TrialTask(Scratch scratch, int trials, SplittableRandom rnd) {
+            this.scratch = scratch;
+            this.trials = trials;
+            this.rnd = rnd;
+        }
+
+        protected Welford compute() {
+            if (trials <= LEAF_TRIALS) {
+                Welford acc = new Welford();
+                Trial trial = scratch.acquire();
+                try {
+                    for (int ix = 0; ix < trials; ix++) acc.add(trial.run(rnd));
+                }
+                finally {
+                    scratch.release(trial);
+                }
+                return acc;
+            }
+            int half = trials >>> 1;
+            // split before forking, so that the streams do not depend on the execution order
+            TrialTask left = new TrialTask(scratch, half, rnd.split());
+            TrialTask right = new TrialTask(scratch, trials - half, rnd);
+            right.fork();
+            Welford acc = left.compute();
+            acc.merge(right.join());  // merge order is fixed too
+            return acc;
+        }
+    }
 
     // perform independent trials on an n-by-n grid
     public PercolationStats(int n, int trials) {
-        if (n <= 0) throw new IllegalArgumentException("n (size) must be >= 1");
-        if (trials <= 0) throw new IllegalArgumentException("trials must be >= 1");
+        checkArgs(n, trials);
 
-        this.trials = trials;
-        this.statOpenSites = new double[trials];
-
-        Percolation perco = null;
+        this.stat = new Welford();
+        Lattice lattice = Lattice.square(n);
+        Trial trial = new Trial(lattice, lattice.indexes());
 
         // initiate experiment
-        for (int ix = 0; ix < this.trials; ix++) {
-            perco = new Percolation(n);
+        for (int ix = 0; ix < trials; ix++) {
+            this.stat.add(trial.run());
+        }
+    }
 
-            while (!perco.percolates()) {
-                int jx = StdRandom.uniform(1, n + 1);
-                int kx = StdRandom.uniform(1, n + 1);
-                perco.open(jx, kx);
-            }
+    // perform independent trials on an n-by-n grid, in parallel, reproducible from given seed
+    public PercolationStats(int n, int trials, long seed) {
+        this(n, trials, seed, ForkJoinPool.commonPool());
+    }
+
+    // ditto, using given pool
+    public PercolationStats(int n, int trials, long seed, ForkJoinPool pool) {
+        this(square(n), trials, seed, pool);
+    }
+
+    // perform independent trials on given lattice, in parallel, reproducible from given seed
+    public PercolationStats(Lattice lattice, int trials, long seed) {
+        this(lattice, trials, seed, ForkJoinPool.commonPool());
+    }
 
-            // get number of open sites
-            this.statOpenSites[ix] = 1.0 * perco.numberOfOpenSites() / (n * n);
-            perco = null;
+    // ditto, using given pool
+    public PercolationStats(Lattice lattice, int trials, long seed, ForkJoinPool pool) {
+        checkArgs(lattice, trials);
+        if (pool == null) throw new IllegalArgumentException("pool cannot be null");
+
+        Scratch scratch = new Scratch(lattice, lattice.indexes());
+        this.stat = pool.invoke(new TrialTask(scratch, trials, new SplittableRandom(seed)));
+    }
+
+    /*
+     * Early-stop mode: keep adding trials (by batch, in parallel) until the half-width of the 95% confidence interval
+     * (1.96 * stddev / sqrt(T)) drops below given halfWidth, or until maxTrials trials have been run.
+     * Reproducible from given seed.
+     */
+    public PercolationStats(int n, double halfWidth, int maxTrials, long seed) {
+        this(square(n), halfWidth, maxTrials, seed);
+    }
+
+    // ditto, on given lattice
+    public PercolationStats(Lattice lattice, double halfWidth, int maxTrials, long seed) {
+        checkArgs(lattice, maxTrials);
+        if (!(halfWidth > 0.0)) throw new IllegalArgumentException("halfWidth must be > 0");
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        SplittableRandom rnd = new SplittableRandom(seed);
+        Scratch scratch = new Scratch(lattice, lattice.indexes());
+        this.stat = new Welford();
+
+        while (this.stat.count < maxTrials) {
+            int batch = Math.min(BATCH_TRIALS, maxTrials - this.stat.count);
+            this.stat.merge(pool.invoke(new TrialTask(scratch, batch, rnd.split())));
+            if (this.stat.halfWidth() < halfWidth) break; // false as long as stddev is NaN
         }
     }
 
@@ -45,8 +244,16 @@ public class PercolationStats {
         int n = Integer.parseInt(args[0]);
         int trials = Integer.parseInt(args[1]);
 
-        PercolationStats percoStat = new PercolationStats(n, trials);
+        // optional 3rd arg.: seed => parallel run, optional 4th arg.: target half-width => early-stop
+        PercolationStats percoStat;
+        if (args.length > 3)
+            percoStat = new PercolationStats(n, Double.parseDouble(args[3]), trials, Long.parseLong(args[2]));
+        else if (args.length > 2)
+            percoStat = new PercolationStats(n, trials, Long.parseLong(args[2]));
+        else
+            percoStat = new PercolationStats(n, trials);
 
+        System.out.println("trials                  = " + percoStat.trials());
         System.out.println("mean                    = " + percoStat.mean());
         System.out.println("stddev                  = " + percoStat.stddev());
         System.out.println(
@@ -55,32 +262,43 @@ public class PercolationStats {
 
     }
 
+    // number of trials actually run
+    public int trials() {
+        return this.stat.count;
+    }
+
     // sample mean of percolation threshold
     public double mean() {
-        this.mu = StdStats.mean(this.statOpenSites);
-        return this.mu;
+        return this.stat.mean;
     }
 
     // sample standard deviation of percolation threshold
     public double stddev() {
-        this.stdev = StdStats.stddev(this.statOpenSites);
-        return this.stdev;
+        return this.stat.stddev();
     }
 
     // low endpoint of 95% confidence interval
     public double confidenceLo() {
-        checkPreq();
-        return this.mu - CI_95 * (this.stdev / Math.sqrt(this.trials));
+        return this.stat.mean - this.stat.halfWidth();
     }
 
     // high endpoint of 95% confidence interval
     public double confidenceHi() {
-        checkPreq();
-        return this.mu + CI_95 * (this.stdev / Math.sqrt(this.trials));
+        return this.stat.mean + this.stat.halfWidth();
     }
 
-    private void checkPreq() {
-        if (Double.isNaN(this.mu)) this.mean();
-        if (Double.isNaN(this.stdev)) this.stddev();
+    private static void checkArgs(int n, int trials) {
+        if (n <= 0) throw new IllegalArgumentException("n (size) must be >= 1");
+        if (trials <= 0) throw new IllegalArgumentException("trials must be >= 1");
+    }
+
+    private static void checkArgs(Lattice lattice, int trials) {
+        if (lattice == null) throw new IllegalArgumentException("lattice cannot be null");
+        if (trials <= 0) throw new IllegalArgumentException("trials must be >= 1");
+    }
+
+    private static Lattice square(int n) {
+        if (n <= 0) throw new IllegalArgumentException("n (size) must be >= 1");
+        return Lattice.square(n);
     }
 }
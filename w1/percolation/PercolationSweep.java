@@ -0,0 +1,216 @@
+/* *****************************************************************************
+ *  Name: Pascal P.
+ *  Date: Feb 2020
+ *  Description: Assign 1 - Princeton Algorithms
+ **************************************************************************** */
+
+import java.util.SplittableRandom;
+
+/*
+ * Newman-Ziff sweep: instead of one experiment per site probability p, each trial opens all the sites, one at a time,
+ * in a single random order, and records after each open (k open sites) whether the system percolates, the size of
+ * its largest cluster and its mean cluster size.
+ * Averaged over the trials, these are the curves for exactly k open sites (microcanonical), from which the curves
+ * for any p (canonical, each site open with probability p) follow by binomial convolution - all of them from one
+ * O(N) pass per trial (N sites).
+ */
+public class PercolationSweep {
+    private static final double EPS = 1e-15;    // convolution: binomial weights below EPS * max weight are dropped
+
+    private final Lattice lattice;
+    private final int numSites;
+    private final int trials;
+    private double thresholdSum = 0.0;          // sum of the fraction of open sites at percolation
+
+    /*
+     * Curves, indexed by the number k of open sites (0 <= k <= N): sums over the trials, then averages once done.
+     * percolation[k] first counts the trials which percolate at step k (exactly), then is turned into a fraction
+     * of the trials which percolate with k open sites.
+     */
+    private final double[] percolation;
+    private final double[] largest;             // size of the largest cluster
+    private final double[] meanSize;            // mean cluster size, sum(s^2) / k, size of the cluster of a random open site
+
+    // trial state: the system (with cluster statistics), reset for each trial
+    private final LatticePercolation perco;
+    private final int[] perm;                   // opening order, partial Fisher-Yates shuffle (see PercolationStats)
+
+    // sweep given number of trials on an n-by-n grid, reproducible from given seed
+    public PercolationSweep(int n, int trials, long seed) {
+        this(square(n), trials, seed);
+    }
+
+    // ditto, on given lattice
+    public PercolationSweep(Lattice lattice, int trials, long seed) {
+        if (lattice == null) throw new IllegalArgumentException("lattice cannot be null");
+        if (trials <= 0) throw new IllegalArgumentException("trials must be >= 1");
+
+        this.lattice = lattice;
+        this.numSites = lattice.numberOfSites();
+        this.trials = trials;
+        this.percolation = new double[this.numSites + 1];
+        this.largest = new double[this.numSites + 1];
+        this.meanSize = new double[this.numSites + 1];
+
+        this.perco = new LatticePercolation(lattice);
+        this.perco.trackClusters();
+        this.perm = lattice.indexes();
+
+        SplittableRandom rnd = new SplittableRandom(seed);
+        for (int ix = 0; ix < trials; ix++) sweep(rnd);
+
+        double cum = 0.0;
+        for (int k = 0; k <= this.numSites; k++) {
+            cum += this.percolation[k];
+            this.percolation[k] = cum / trials;
+            this.largest[k] /= trials;
+            this.meanSize[k] /= trials;
+        }
+    }
+
+    // test client (see below)
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        int trials = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+        int steps = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        PercolationSweep sweep = new PercolationSweep(n, trials, seed);
+        int numSites = sweep.numberOfSites();
+
+        assert sweep.percolatesAfter(0) == 0.0 && sweep.percolatesAfter(numSites) == 1.0;
+        assert sweep.largestClusterAfter(numSites) == numSites && sweep.meanClusterSizeAfter(numSites) == numSites;
+        assert sweep.largestClusterAfter(1) == 1.0 && sweep.meanClusterSizeAfter(1) == 1.0;
+        for (int k = 1; k <= numSites; k++) {
+            assert sweep.percolatesAfter(k) >= sweep.percolatesAfter(k - 1);
+            assert sweep.largestClusterAfter(k) >= sweep.largestClusterAfter(k - 1);
+            assert sweep.meanClusterSizeAfter(k) <= sweep.largestClusterAfter(k) + 1e-9;
+        }
+        assert sweep.percolationProbability(0.0) == 0.0 && sweep.percolationProbability(1.0) == 1.0;
+
+        // a 1-by-1 grid percolates as soon as its site is open: P(p) = p, and so is its mean largest cluster
+        PercolationSweep one = new PercolationSweep(1, 1, seed);
+        assert Math.abs(one.percolationProbability(0.3) - 0.3) < 1e-12;
+        assert Math.abs(one.largestCluster(0.3) - 0.3) < 1e-12;
+
+        System.out.println("threshold               = " + sweep.threshold());
+        System.out.println("p         percolates   largest/N    mean size");
+        for (int ix = 0; ix <= steps; ix++) {
+            double p = 1.0 * ix / steps;
+            System.out.printf("%.4f    %.6f     %.6f     %.3f%n", p, sweep.percolationProbability(p),
+                              sweep.largestCluster(p) / numSites, sweep.meanClusterSize(p));
+        }
+    }
+
+    public Lattice lattice() {
+        return this.lattice;
+    }
+
+    // number of sites N
+    public int numberOfSites() {
+        return this.numSites;
+    }
+
+    public int trials() {
+        return this.trials;
+    }
+
+    // sample mean of percolation threshold (fraction of open sites when the system starts percolating)
+    public double threshold() {
+        return this.thresholdSum / this.trials;
+    }
+
+    // fraction of the trials which percolate with k open sites
+    public double percolatesAfter(int k) {
+        checkK(k);
+        return this.percolation[k];
+    }
+
+    // mean size (in sites) of the largest cluster with k open sites
+    public double largestClusterAfter(int k) {
+        checkK(k);
+        return this.largest[k];
+    }
+
+    // mean cluster size with k open sites (mean size of the cluster of a random open site), 0 when k == 0
+    public double meanClusterSizeAfter(int k) {
+        checkK(k);
+        return this.meanSize[k];
+    }
+
+    // probability that the system percolates when each site is open with probability p
+    public double percolationProbability(double p) {
+        return convolve(this.percolation, p);
+    }
+
+    // ditto, mean size (in sites) of the largest cluster
+    public double largestCluster(double p) {
+        return convolve(this.largest, p);
+    }
+
+    // ditto, mean cluster size
+    public double meanClusterSize(double p) {
+        return convolve(this.meanSize, p);
+    }
+
+    // one trial: open all the sites in random order, updating the curves after each open
+    private void sweep(SplittableRandom rnd) {
+        this.perco.reset();
+        boolean percolated = false;
+
+        for (int k = 0; k < this.numSites; k++) {
+            int jx = k + rnd.nextInt(this.numSites - k);
+            int ix = this.perm[jx];
+            this.perm[jx] = this.perm[k];
+            this.perm[k] = ix;
+            this.perco.openIndex(ix);
+
+            if (!percolated && this.perco.percolates()) {
+                percolated = true;
+                this.percolation[k + 1]++;
+                this.thresholdSum += (k + 1.0) / this.numSites;
+            }
+            this.largest[k + 1] += this.perco.largestCluster();
+            this.meanSize[k + 1] += (double) this.perco.sumOfSquaredClusterSizes() / (k + 1);
+        }
+    }
+
+    /*
+     * Canonical value at p of the microcanonical curve q: sum over k of B(N, k, p) q[k].
+     * The binomial weights are computed by recurrence from the mode outwards (relative to the weight of the mode),
+     * until negligible, then normalized: O(sqrt(N)) terms, no overflow.
+     */
+    private double convolve(double[] q, double p) {
+        if (!(p >= 0.0 && p <= 1.0)) throw new IllegalArgumentException("p must be in [0, 1], got: " + p);
+        int nn = this.numSites;
+        if (p == 0.0) return q[0];
+        if (p == 1.0) return q[nn];
+
+        int mode = (int) Math.min(nn, Math.floor((nn + 1) * p));
+        double ratio = p / (1.0 - p);
+        double sum = q[mode], norm = 1.0;
+        double w = 1.0;
+        for (int k = mode; k < nn && w > EPS; k++) {
+            w *= (double) (nn - k) / (k + 1) * ratio;
+            sum += w * q[k + 1];
+            norm += w;
+        }
+        w = 1.0;
+        for (int k = mode; k > 0 && w > EPS; k--) {
+            w *= (double) k / (nn - k + 1) / ratio;
+            sum += w * q[k - 1];
+            norm += w;
+        }
+        return sum / norm;
+    }
+
+    private void checkK(int k) {
+        if (k < 0 || k > this.numSites)
+            throw new IllegalArgumentException("0 <= k <= " + this.numSites + ", got: " + k);
+    }
+
+    private static Lattice square(int n) {
+        if (n <= 0) throw new IllegalArgumentException("n (size) must be >= 1");
+        return Lattice.square(n);
+    }
+}
@@ -0,0 +1,131 @@
+/* *****************************************************************************
+ *  Name: Pascal P.
+ *  Date: Feb 2020
+ *  Description: Assign 1 - Princeton Algorithms
+ **************************************************************************** */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/*
+ * Storage of a percolation system of (at most Integer.MAX_VALUE) sites, addressed by flat index:
+ * - one open bit per site, bit-packed in longs,
+ * - one int per site for the union-find forest: index of the parent for a non-root site,
+ *   a negative value for a root, which encodes its rank and flags (see LatticePercolation).
+ *
+ * That is 4 bytes + 1 bit per site, either on the java heap or off-heap (direct buffers), the latter keeping
+ * large systems out of the heap budget (and out of the GC).
+ */
+abstract class SiteStore {
+    static final int ROOT = -1;   // initial entry of each site: root, rank 0, no flag
+
+    // is site ix open?
+    abstract boolean isOpen(int ix);
+
+    // mark site ix as open
+    abstract void setOpen(int ix);
+
+    // union-find entry of site ix
+    abstract int get(int ix);
+
+    abstract void set(int ix, int val);
+
+    // all sites blocked, each its own root
+    abstract void clear();
+
+    static SiteStore onHeap(int nSites) {
+        return new Heap(nSites);
+    }
+
+    static SiteStore offHeap(int nSites) {
+        return new Direct(nSites);
+    }
+
+    private static int numWords(int nSites) {
+        return (int) ((nSites + 63L) >>> 6);
+    }
+
+    private static final class Heap extends SiteStore {
+        private final long[] bits;
+        private final int[] uf;
+
+        Heap(int nSites) {
+            this.bits = new long[numWords(nSites)];
+            this.uf = new int[nSites];
+            this.clear();
+        }
+
+        boolean isOpen(int ix) {
+            return (this.bits[ix >>> 6] & (1L << ix)) != 0;  // shift distance is taken mod 64
+        }
+
+        void setOpen(int ix) {
+            this.bits[ix >>> 6] |= 1L << ix;
+        }
+
+        int get(int ix) {
+            return this.uf[ix];
+        }
+
+        void set(int ix, int val) {
+            this.uf[ix] = val;
+        }
+
+        void clear() {
+            Arrays.fill(this.bits, 0L);
+            Arrays.fill(this.uf, ROOT);
+        }
+    }
+
+    /*
+     * A direct buffer is limited to 2GB, hence the union-find entries are split in chunks of 2^28 ints (1GB).
+     */
+    private static final class Direct extends SiteStore {
+        private static final int CHUNK_SHIFT = 28;
+        private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+        private final LongBuffer bits;
+        private final ByteBuffer[] uf;
+
+        Direct(int nSites) {
+            this.bits = ByteBuffer.allocateDirect(numWords(nSites) << 3).order(ByteOrder.nativeOrder())
+                                  .asLongBuffer();
+
+            int nChunks = (int) ((nSites + (long) CHUNK_MASK) >>> CHUNK_SHIFT);
+            this.uf = new ByteBuffer[nChunks];
+            for (int ix = 0; ix < nChunks; ix++) {
+                int len = Math.min(CHUNK_MASK + 1, nSites - (ix << CHUNK_SHIFT));
+                this.uf[ix] = ByteBuffer.allocateDirect(len << 2).order(ByteOrder.nativeOrder());
+            }
+            this.clear();
+        }
+
+        boolean isOpen(int ix) {
+            return (this.bits.get(ix >>> 6) & (1L << ix)) != 0;
+        }
+
+        void setOpen(int ix) {
+            int w = ix >>> 6;
+            this.bits.put(w, this.bits.get(w) | (1L << ix));
+        }
+
+        int get(int ix) {
+            return this.uf[ix >>> CHUNK_SHIFT].getInt((ix & CHUNK_MASK) << 2);
+        }
+
+        void set(int ix, int val) {
+            this.uf[ix >>> CHUNK_SHIFT].putInt((ix & CHUNK_MASK) << 2, val);
+        }
+
+        void clear() {
+            for (int ix = 0; ix < this.bits.capacity(); ix++) this.bits.put(ix, 0L);
+            for (ByteBuffer chunk : this.uf) {
+                int ix = 0, cap = chunk.capacity();
+                for (; ix + 8 <= cap; ix += 8) chunk.putLong(ix, -1L);  // two ROOT entries at once
+                if (ix < cap) chunk.putInt(ix, ROOT);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Lock-free work-stealing deque (Chase-Lev, with the memory orderings of Le et al. for weak memory models).
+ *
+ * One owner thread pushes and pops at the front (addFirst/removeFirst, LIFO), any number of thieves
+ * steal from the back (removeLast, FIFO), so that a pool of workers, each owning one deque, scales:
+ * the owner only synchronizes with a thief (one CAS) when both compete for the last item.
+ *
+ * Items are at indexes top, top + 1, ..., bottom - 1 (mod capacity) of a circular array of capacity a power of 2,
+ * bottom being the front (written by the owner only) and top the back (advanced by CAS).
+ * The array grows when full (never shrinks); a thief may still read the former array, which is left untouched.
+ *
+ * Unlike Deque, removing from an empty deque returns null, as emptiness cannot be checked beforehand
+ * (check-then-act) by concurrent threads.
+ */
+public class ConcurrentDeque<Item> {
+    private static final int MIN_CAP = 32;
+
+    private static final VarHandle TOP, BOTTOM, ARRAY;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TOP = lookup.findVarHandle(ConcurrentDeque.class, "top", long.class);
+            BOTTOM = lookup.findVarHandle(ConcurrentDeque.class, "bottom", long.class);
+            ARRAY = lookup.findVarHandle(ConcurrentDeque.class, "array", Object[].class);
+        }
+        catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private volatile long top;     // next item to steal
+    private volatile long bottom;  // next free slot at the front
+    private volatile Object[] array;
+
+    // construct an empty deque
+    public ConcurrentDeque() {
+        this.array = new Object[MIN_CAP];
+    }
+
+    // is the deque empty? (a snapshot, possibly stale when used concurrently)
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // return the number of items on the deque (ditto)
+    public int size() {
+        long b = (long) BOTTOM.getAcquire(this), t = (long) TOP.getAcquire(this);
+        return (int) Math.max(0L, b - t);
+    }
+
+    // owner only: add the item to the front
+    public void addFirst(Item item) {
+        checkItem(item);
+
+        long b = (long) BOTTOM.getOpaque(this), t = (long) TOP.getAcquire(this);
+        Object[] a = (Object[]) ARRAY.getOpaque(this);
+        if (b - t > a.length - 1) a = grow(a, t, b);
+        SLOT.setOpaque(a, (int) b & (a.length - 1), item);
+        BOTTOM.setRelease(this, b + 1);  // publishes the item to the thieves
+    }
+
+    // owner only: remove and return the item from the front, null if empty
+    public Item removeFirst() {
+        long b = (long) BOTTOM.getOpaque(this) - 1;
+        Object[] a = (Object[]) ARRAY.getOpaque(this);
+        BOTTOM.setOpaque(this, b);
+        VarHandle.fullFence();  // bottom store before top load, see removeLast()
+        long t = (long) TOP.getOpaque(this);
+
+        if (t > b) {  // empty
+            BOTTOM.setOpaque(this, b + 1);
+            return null;
+        }
+        int ix = (int) b & (a.length - 1);
+        Item item = (Item) SLOT.getOpaque(a, ix);
+        if (t == b) {  // last item: race with the thieves
+            if (!TOP.compareAndSet(this, t, t + 1)) item = null;  // stolen
+            BOTTOM.setOpaque(this, b + 1);
+        }
+        SLOT.setOpaque(a, ix, null);  // for gc (a stolen item is already in the hands of its thief)
+        return item;
+    }
+
+    // any thread: remove and return the item from the back, null if empty or if another thread won the race for it
+    public Item removeLast() {
+        long t = (long) TOP.getAcquire(this);
+        VarHandle.fullFence();  // top load before bottom load, see removeFirst()
+        long b = (long) BOTTOM.getAcquire(this);
+        if (t >= b) return null;
+
+        Object[] a = (Object[]) ARRAY.getAcquire(this);
+        Item item = (Item) SLOT.getAcquire(a, (int) t & (a.length - 1));
+        if (!TOP.compareAndSet(this, t, t + 1)) return null;
+        return item;
+    }
+
+    // owner only: copy items at indexes top..bottom - 1 into an array twice as large
+    private Object[] grow(Object[] a, long t, long b) {
+        Object[] na = new Object[2 * a.length];
+        for (long ix = t; ix < b; ix++) na[(int) ix & (na.length - 1)] = a[(int) ix & (a.length - 1)];
+        ARRAY.setRelease(this, na);
+        return na;
+    }
+
+    private void checkItem(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("item cannot be null");
+    }
+
+    // unit testing
+    public static void main(String[] args) throws InterruptedException {
+        int thieves = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        System.out.println("let's start");
+
+        System.out.println("--- owner only: LIFO at the front, FIFO at the back ---");
+        ConcurrentDeque<Integer> dq = new ConcurrentDeque<Integer>();
+        assert dq.isEmpty() && dq.removeFirst() == null && dq.removeLast() == null;
+        final int N = 1000;  // > MIN_CAP => resize
+        for (int ix = 1; ix <= N; ix++) dq.addFirst(ix);
+        assert dq.size() == N : "dq should be of size " + N + ", got: " + dq.size();
+        for (int ix = 1; ix <= N / 2; ix++) {
+            int item = dq.removeLast();
+            assert item == ix : "expect item to be: " + ix + " / got: " + item;
+        }
+        for (int ix = N; ix > N / 2; ix--) {
+            int item = dq.removeFirst();
+            assert item == ix : "expect item to be: " + ix + " / got: " + item;
+        }
+        assert dq.isEmpty() && dq.removeFirst() == null && dq.removeLast() == null;
+
+        System.out.println("--- owner vs. " + thieves + " thieves: each item taken exactly once ---");
+        assertConcurrentTakes(thieves, 1_000_000);
+
+        System.out.println("--- Completed ---");
+    }
+
+    private static void assertConcurrentTakes(int thieves, int n) throws InterruptedException {
+        final ConcurrentDeque<Integer> dq = new ConcurrentDeque<Integer>();
+        final AtomicIntegerArray taken = new AtomicIntegerArray(n);
+        final AtomicLong stolen = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Thread[] threads = new Thread[thieves];
+        for (int ix = 0; ix < thieves; ix++) {
+            threads[ix] = new Thread(() -> {
+                long cnt = 0;
+                while (true) {
+                    Integer item = dq.removeLast();
+                    if (item != null) {
+                        taken.incrementAndGet(item);
+                        cnt++;
+                    }
+                    else if (done.getCount() == 0 && dq.isEmpty()) break;
+                    else Thread.yield();
+                }
+                stolen.addAndGet(cnt);
+            });
+            threads[ix].start();
+        }
+
+        // owner: push everything, popping one in three items (the last ones are raced for)
+        long popped = 0;
+        for (int ix = 0; ix < n; ix++) {
+            dq.addFirst(ix);
+            if (ix % 3 == 2) {
+                Integer item = dq.removeFirst();
+                if (item != null) {
+                    taken.incrementAndGet(item);
+                    popped++;
+                }
+            }
+        }
+        for (Integer item = dq.removeFirst(); item != null; item = dq.removeFirst()) {
+            taken.incrementAndGet(item);
+            popped++;
+        }
+        done.countDown();
+        for (Thread th : threads) th.join();
+
+        for (int ix = 0; ix < n; ix++) assert taken.get(ix) == 1 : "item " + ix + " taken " + taken.get(ix) + " times";
+        assert popped + stolen.get() == n;
+        System.out.println("popped: " + popped + " / stolen: " + stolen.get());
+    }
+}
@@ -0,0 +1,315 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * Thread-safe randomized queue: items are sharded across stripes (each a RandomizedQueue-like array with its own
+ * lock), random numbers come from ThreadLocalRandom, so that there is neither a global lock nor a shared
+ * random generator.
+ *
+ * - enqueue() appends to the home stripe of the calling thread (threads mostly do not contend),
+ * - dequeue()/sample() pick an item uniformly over all the stripes (exactly, when no other thread modifies the queue
+ *   meanwhile), by rejection: a random stripe and a random slot below a bound on the stripes' sizes, retried
+ *   until the slot holds an item. A miss costs one (volatile) read of the size of one stripe, no lock, and the sizes
+ *   of the other stripes are not read: no scan of the shared, frequently written sizes per operation.
+ *   Dequeuing from the home stripe only would favour the items the thread enqueued itself.
+ *   After stripes.length misses (unbalanced or almost empty queue, stale bound), a stripe is picked with probability
+ *   proportional to its size from a scan of the sizes (which also refreshes the bound); should it have been emptied
+ *   meanwhile, the other stripes are tried in turn (stealing).
+ *   The bound only rises by atomic max; a scan lowers it by CAS, then re-reads the sizes and raises it back to any
+ *   size published meanwhile: once the queue is quiescent, no stripe is larger than the bound.
+ */
+public class ConcurrentRandomizedQueue<Item> implements Iterable<Item> {
+    private final Stripe<Item>[] stripes;
+    private final int mask;   // stripes.length - 1
+    private final AtomicInteger bound = new AtomicInteger();  // >= size of every stripe, once quiescent
+
+    @SuppressWarnings("unchecked")  // Item[] arrays are never exposed
+    private static final class Stripe<Item> {
+        private static final int MIN_CAP = 4;
+        private Item[] q = (Item[]) new Object[MIN_CAP];
+        private volatile int sz;  // written under the lock, read without (size estimates)
+
+        // add the item, return the new size
+        synchronized int add(Item item) {
+            if (sz == q.length) resize(2 * q.length);
+            q[sz] = item;
+            return ++sz;
+        }
+
+        // remove and return a random item, null if empty
+        synchronized Item remove(ThreadLocalRandom rnd) {
+            if (sz == 0) return null;
+            int ix = rnd.nextInt(sz), last = sz - 1;
+            Item item = q[ix];
+            q[ix] = q[last]; // swap with last element, NO-OP if ix == last
+            q[last] = null;
+            sz = last;
+            if (sz == q.length / 4 && q.length > MIN_CAP) resize(q.length / 2);
+            return item;
+        }
+
+        // return a random item, null if empty
+        synchronized Item sample(ThreadLocalRandom rnd) {
+            return sz == 0 ? null : q[rnd.nextInt(sz)];
+        }
+
+        // remove and return the item at given slot, null if the slot is empty (no lock then)
+        Item removeAt(int ix) {
+            if (ix >= sz) return null;
+            synchronized (this) {
+                if (ix >= sz) return null;
+                int last = sz - 1;
+                Item item = q[ix];
+                q[ix] = q[last];
+                q[last] = null;
+                sz = last;
+                if (sz == q.length / 4 && q.length > MIN_CAP) resize(q.length / 2);
+                return item;
+            }
+        }
+
+        // return the item at given slot, null if the slot is empty
+        Item sampleAt(int ix) {
+            if (ix >= sz) return null;
+            synchronized (this) {
+                return ix >= sz ? null : q[ix];
+            }
+        }
+
+        synchronized void copyTo(ArrayList<Item> items) {
+            for (int ix = 0; ix < sz; ix++) items.add(q[ix]);
+        }
+
+        private void resize(int newCap) {
+            Item[] cq = (Item[]) new Object[newCap];
+            System.arraycopy(q, 0, cq, 0, sz);
+            q = cq;
+        }
+    }
+
+    // construct an empty randomized queue, sized for the number of available processors
+    public ConcurrentRandomizedQueue() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // construct an empty randomized queue, sized for given number of concurrent threads
+    @SuppressWarnings("unchecked")
+    public ConcurrentRandomizedQueue(int concurrency) {
+        if (concurrency <= 0) throw new IllegalArgumentException("concurrency must be >= 1");
+
+        int num = Integer.highestOneBit(2 * concurrency - 1) << 1;  // power of 2 >= 2 * concurrency
+        this.stripes = (Stripe<Item>[]) new Stripe<?>[num];
+        for (int ix = 0; ix < num; ix++) this.stripes[ix] = new Stripe<Item>();
+        this.mask = num - 1;
+    }
+
+    // is the randomized queue empty? (a snapshot, possibly stale when used concurrently)
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // return the number of items on the randomized queue (ditto)
+    public int size() {
+        int total = 0;
+        for (Stripe<Item> stripe : this.stripes) total += stripe.sz;
+        return total;
+    }
+
+    // add the item
+    public void enqueue(Item item) {
+        checkItem(item);
+        raiseBound(this.stripes[home()].add(item));
+    }
+
+    // remove and return a random item
+    public Item dequeue() {
+        Item item = poll();
+        if (item == null)
+            throw new java.util.NoSuchElementException("Cannot remove item from empty YaQueue");
+        return item;
+    }
+
+    // remove and return a random item, null if empty (no check-then-act race between isEmpty() and dequeue())
+    public Item poll() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int t = 0; t < this.stripes.length; t++) {
+            int b = this.bound.get();
+            if (b == 0) break;
+            Item item = this.stripes[rnd.nextInt(this.stripes.length)].removeAt(rnd.nextInt(b));
+            if (item != null) return item;
+        }
+        int start = pick(rnd);
+        for (int k = 0; k < this.stripes.length; k++) {
+            Item item = this.stripes[(start + k) & this.mask].remove(rnd);
+            if (item != null) return item;
+        }
+        return null;
+    }
+
+    // return a random item (but do not remove it)
+    public Item sample() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int t = 0; t < this.stripes.length; t++) {
+            int b = this.bound.get();
+            if (b == 0) break;
+            Item item = this.stripes[rnd.nextInt(this.stripes.length)].sampleAt(rnd.nextInt(b));
+            if (item != null) return item;
+        }
+        int start = pick(rnd);
+        for (int k = 0; k < this.stripes.length; k++) {
+            Item item = this.stripes[(start + k) & this.mask].sample(rnd);
+            if (item != null) return item;
+        }
+        throw new java.util.NoSuchElementException("Cannot sample from empty YaQueue");
+    }
+
+    // return an independent iterator over items in random order (over a snapshot, stripe by stripe)
+    public Iterator<Item> iterator() {
+        ArrayList<Item> items = new ArrayList<Item>();
+        for (Stripe<Item> stripe : this.stripes) stripe.copyTo(items);
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int ix = items.size() - 1; ix > 0; ix--) {
+            int jx = rnd.nextInt(ix + 1);
+            items.set(jx, items.set(ix, items.get(jx)));
+        }
+        return items.iterator();
+    }
+
+    // unit testing
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        System.out.println("let's start");
+
+        System.out.println("--- single thread ---");
+        ConcurrentRandomizedQueue<Integer> rq = new ConcurrentRandomizedQueue<Integer>(threads);
+        assert rq.isEmpty() && rq.poll() == null;
+        final int N = 120;
+        for (int ix = 1; ix <= N; ix++) rq.enqueue(ix);
+        assert rq.size() == N;
+        int sum = 0;
+        for (int item : rq) sum += item;
+        assert sum == N * (N + 1) / 2 : "iterator should return every item once";
+        sum = 0;
+        while (!rq.isEmpty()) sum += rq.dequeue();
+        assert sum == N * (N + 1) / 2 : "dequeue should return every item once";
+        try {
+            rq.dequeue();
+            assert false : "dequeue() on empty queue should throw";
+        } catch (java.util.NoSuchElementException ex) {
+            System.out.println("Intercepted expected exception: " + ex.getMessage());
+        }
+
+        System.out.println("--- uniform across unbalanced stripes ---");
+        assertUniform(false);
+
+        System.out.println("--- uniform after a stale scan lowered the bound ---");
+        assertUniform(true);
+
+        System.out.println("--- " + threads + " producers / " + threads + " consumers: each item dequeued once ---");
+        assertConcurrentDequeues(threads, 200_000);
+
+        System.out.println("--- Completed ---");
+    }
+
+    // home stripe of the calling thread
+    private int home() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & this.mask;
+    }
+
+    // random stripe, with probability proportional to its size (from a racy snapshot of the sizes), refreshing the bound
+    private int pick(ThreadLocalRandom rnd) {
+        int seen = this.bound.get(), total = 0, max = 0;
+        for (Stripe<Item> stripe : this.stripes) {
+            int sz = stripe.sz;
+            total += sz;
+            max = Math.max(max, sz);
+        }
+        lowerBound(seen, max);
+        if (total == 0) return home();
+
+        int r = rnd.nextInt(total);
+        for (int ix = 0; ix < this.stripes.length; ix++) {
+            r -= this.stripes[ix].sz;
+            if (r < 0) return ix;
+        }
+        return rnd.nextInt(this.stripes.length);  // sizes changed meanwhile
+    }
+
+    // raise the bound to given stripe size (rarely written: only when a stripe outgrows the others)
+    private void raiseBound(int sz) {
+        if (sz > this.bound.get()) this.bound.accumulateAndGet(sz, Math::max);
+    }
+
+    /*
+     * Lower the bound to max, the largest size scanned since the bound was seen. The scan may be stale: an add
+     * that read the bound before the CAS did not raise it, but published its size before, hence the sizes re-read
+     * after the CAS; an add that reads the bound after the CAS raises it itself.
+     */
+    private void lowerBound(int seen, int max) {
+        if (max >= seen || !this.bound.compareAndSet(seen, max)) return;
+        for (Stripe<Item> stripe : this.stripes) raiseBound(stripe.sz);
+    }
+
+    private void checkItem(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("item cannot be null");
+    }
+
+    // 1 item enqueued by one thread, 9 by another (distinct stripes): each should be sampled and first dequeued ~10%
+    // of the time, even after a scan made before the 9 enqueues (sizes 1 and 0) lowers the bound (stale)
+    private static void assertUniform(boolean staleScan) throws InterruptedException {
+        final int TRIALS = 20_000, K = 10;
+        int[] count = new int[K], sampled = new int[K];
+        for (int t = 0; t < TRIALS; t++) {
+            final ConcurrentRandomizedQueue<Integer> rq = new ConcurrentRandomizedQueue<Integer>(64);
+            Thread th = new Thread(() -> rq.enqueue(0));
+            th.start();
+            th.join();
+            for (int ix = 1; ix < K; ix++) rq.enqueue(ix);
+            if (staleScan) {
+                rq.lowerBound(rq.bound.get(), 1);
+                assert rq.bound.get() >= K - 1 : "bound " + rq.bound.get() + " below a stripe size";
+            }
+            sampled[rq.sample()]++;
+            count[rq.dequeue()]++;
+        }
+        for (int ix = 0; ix < K; ix++) {
+            double freq = 1.0 * count[ix] / TRIALS;
+            assert Math.abs(freq - 1.0 / K) < 0.015 : "item " + ix + " dequeued first with frequency " + freq;
+            freq = 1.0 * sampled[ix] / TRIALS;
+            assert Math.abs(freq - 1.0 / K) < 0.015 : "item " + ix + " sampled with frequency " + freq;
+        }
+    }
+
+    private static void assertConcurrentDequeues(int threads, int n) throws InterruptedException {
+        final ConcurrentRandomizedQueue<Integer> rq = new ConcurrentRandomizedQueue<Integer>(threads);
+        final AtomicIntegerArray taken = new AtomicIntegerArray(n);
+        final CountDownLatch produced = new CountDownLatch(threads);
+
+        Thread[] workers = new Thread[2 * threads];
+        for (int ix = 0; ix < threads; ix++) {
+            final int first = ix;
+            workers[ix] = new Thread(() -> {
+                for (int item = first; item < n; item += threads) rq.enqueue(item);
+                produced.countDown();
+            });
+            workers[threads + ix] = new Thread(() -> {
+                while (true) {
+                    Integer item = rq.poll();
+                    if (item != null) taken.incrementAndGet(item);
+                    else if (produced.getCount() == 0 && rq.isEmpty()) break;
+                    else Thread.yield();
+                }
+            });
+        }
+        for (Thread th : workers) th.start();
+        for (Thread th : workers) th.join();
+
+        for (int ix = 0; ix < n; ix++) assert taken.get(ix) == 1 : "item " + ix + " taken " + taken.get(ix) + " times";
+    }
+}
@@ -1,20 +1,24 @@
 import java.util.Iterator;
 
+/*
+ * Circular array (ring buffer) of capacity a power of 2: no allocation per item, index wrap-around by masking.
+ * Items are at head, head + 1, ..., head + sz - 1 (mod capacity); the array doubles when full and halves
+ * when a quarter full (amortized O(1) per operation, at most 4 slots per item).
+ */
 public class Deque<Item> implements Iterable<Item> {
-    private Node first, last;
-    private int sz;
+    private static final int MIN_CAP = 8;
+    private static final QueueMetrics METRICS = QueueMetrics.of("Deque");  // null unless instrumented
 
-    private class Node {
-        Item item;
-        Node next;
-        Node prev;
-    }
+    private Item[] q;
+    private int mask;  // q.length - 1
+    private int head;  // index of the first item
+    private int sz;
 
-    private class ListIterator implements Iterator<Item> {
-        private Node current = first;
+    private class ArrayIterator implements Iterator<Item> {
+        private int current = 0;  // rank (from the front) of the next item
 
         public boolean hasNext() {
-            return current != null;
+            return current < sz;
         }
 
         public void remove() {
@@ -22,24 +26,24 @@ public class Deque<Item> implements Iterable<Item> {
         }
 
         public Item next() {
-            if (current == null)
+            if (current >= sz)
                 throw new java.util.NoSuchElementException("No more item");
-            Item item = current.item;
-            this.current = current.next;
-            return item;
+            return q[(head + current++) & mask];
         }
     }
 
     // construct an empty deque
+    @SuppressWarnings("unchecked")
     public Deque() {
-        this.first = null;
-        this.last = null;
+        this.q = (Item[]) new Object[MIN_CAP];
+        this.mask = MIN_CAP - 1;
+        this.head = 0;
         this.sz = 0;
     }
 
     // is the deque empty?
     public boolean isEmpty() {
-        return first == null;
+        return this.sz == 0;
     }
 
     // return the number of items on the deque
@@ -51,20 +55,23 @@ public class Deque<Item> implements Iterable<Item> {
     public void addFirst(Item item) {
         checkItem(item);
 
-        Node exfirst = first; // copy
-        first = addHelper(item, exfirst, "first"); // new node
-        if (last == null) last = first;
-        else exfirst.prev = first;
+        long t0 = METRICS != null ? METRICS.start() : 0L;
+        if (this.sz == this.q.length) resize(2 * this.q.length);
+        this.head = (this.head - 1) & this.mask;
+        this.q[this.head] = item;
+        this.sz++;
+        if (METRICS != null) METRICS.added(t0, this.sz);
     }
 
     // add the item to the back
     public void addLast(Item item) {
         checkItem(item);
 
-        Node exlast = last; // copy
-        last = addHelper(item, exlast, "last"); // new node
-        if (first == null) first = last;
-        else exlast.next = last;
+        long t0 = METRICS != null ? METRICS.start() : 0L;
+        if (this.sz == this.q.length) resize(2 * this.q.length);
+        this.q[(this.head + this.sz) & this.mask] = item;
+        this.sz++;
+        if (METRICS != null) METRICS.added(t0, this.sz);
     }
 
     // remove and return the item from the front
@@ -72,9 +79,13 @@ public class Deque<Item> implements Iterable<Item> {
         if (this.isEmpty())
             throw new java.util.NoSuchElementException("Cannot remove item from empty Deque");
 
-        Item item = removeHelper(first, "first");
-        if (this.sz == 0) last = null; // case we remove the only element for Deque
-        else first.prev = null;
+        long t0 = METRICS != null ? METRICS.start() : 0L;
+        Item item = this.q[this.head];
+        this.q[this.head] = null; // for gc
+        this.head = (this.head + 1) & this.mask;
+        this.sz--;
+        shrink();
+        if (METRICS != null) METRICS.removed(t0, 1);
         return item;
     }
 
@@ -83,15 +94,19 @@ public class Deque<Item> implements Iterable<Item> {
         if (this.isEmpty())
             throw new java.util.NoSuchElementException("Cannot remove item from empty Deque");
 
-        Item item = removeHelper(last, "last");
-        if (this.sz == 0) first = null; // case we remove the only element for Deque
-        else last.next = null;
+        long t0 = METRICS != null ? METRICS.start() : 0L;
+        int ix = (this.head + this.sz - 1) & this.mask;
+        Item item = this.q[ix];
+        this.q[ix] = null; // for gc
+        this.sz--;
+        shrink();
+        if (METRICS != null) METRICS.removed(t0, 1);
         return item;
     }
 
     // return an iterator over items in order from front to back
     public Iterator<Item> iterator() {
-        return new ListIterator();
+        return new ArrayIterator();
     }
 
     // unit testing (required)
@@ -137,6 +152,9 @@ public class Deque<Item> implements Iterable<Item> {
         System.out.println("--- test 1..n ---");
         assertOneToN();
 
+        System.out.println("--- wrap around / resize ---");
+        assertWrapAround();
+
         System.out.println("--- Completed ---");
     }
 
@@ -145,42 +163,50 @@ public class Deque<Item> implements Iterable<Item> {
             throw new IllegalArgumentException("item cannot be null");
     }
 
-    private Node addHelper(Item item, Node current, String key) {
-        // new node:
-        Node node = new Node();
-        node.item = item;
-        if (key.equals("first")) {
-            node.next = current;
-            node.prev = null;
-        } else { // last
-            node.next = null;
-            node.prev = current;
-        }
-        this.sz++;
-        return node;
+    private void shrink() {
+        if (this.sz == this.q.length / 4 && this.q.length > MIN_CAP) resize(this.q.length / 2);
+    }
+
+    // copy the items (possibly wrapped around) at the start of a new array of given capacity (a power of 2)
+    @SuppressWarnings("unchecked")
+    private void resize(int newCap) {
+        if (METRICS != null) METRICS.resized(this.q.length, newCap);
+        Item[] cq = (Item[]) new Object[newCap];
+        int n1 = Math.min(this.sz, this.q.length - this.head);  // up to the end of q, then from its start
+        System.arraycopy(this.q, this.head, cq, 0, n1);
+        System.arraycopy(this.q, 0, cq, n1, this.sz - n1);
+        this.q = cq;
+        this.mask = newCap - 1;
+        this.head = 0;
     }
 
-    private Item removeHelper(Node current, String key) {
-        Item item = current.item;
-        current.item = null; // for gc
+    // index of the first, resp. last, item (tests)
+    private int first() {
+        return this.head;
+    }
+
+    private int last() {
+        return (this.head + this.sz - 1) & this.mask;
+    }
 
-        if (key.equals("first")) {
-            first = first.next;
-            current.next = null;
-        } else {
-            last = last.prev;
-            current.prev = null;
+    private boolean occupied(int ix) {
+        return this.q[ix] != null;
+    }
+
+    // no item left behind (tests)
+    private boolean noLoitering() {
+        for (int ix = this.sz; ix < this.q.length; ix++) {
+            if (this.q[(this.head + ix) & this.mask] != null) return false;
         }
-        this.sz--;
-        return item;
+        return true;
     }
 
     private static String addInsertFirstEmptyDeque(Deque<String> dq) {
         String strtest = "un";
         dq.addFirst(strtest);
         assert dq.size() == 1 : "dq should be size 1";
-        assert dq.first == dq.last : "only 1 element in deque hence first == last";
-        assert dq.first != null : "dq.first should NOT be null";
+        assert dq.first() == dq.last() : "only 1 element in deque hence first == last";
+        assert dq.occupied(dq.first()) : "dq.first should NOT be null";
         return strtest;
     }
 
@@ -195,8 +221,8 @@ public class Deque<Item> implements Iterable<Item> {
         String strtest = "enfin";
         dq.addLast(strtest);
         assert dq.size() == 1 : "dq should be size 1";
-        assert dq.first == dq.last : "only 1 element in deque hence first == last";
-        assert dq.last != null : "dq.first should NOT be null";
+        assert dq.first() == dq.last() : "only 1 element in deque hence first == last";
+        assert dq.occupied(dq.last()) : "dq.first should NOT be null";
         return strtest;
     }
 
@@ -216,27 +242,26 @@ public class Deque<Item> implements Iterable<Item> {
 
         assert dq.size() == 3 : "dq should be size 3";
         assert !dq.isEmpty() : "dq should NOT be empty";
-        assert dq.first != dq.last : "many elements (>1) in deque";
-        assert dq.last != null : "dq.last should NOT be null";
-        assert dq.first != null : "dq.first should NOT be null";
+        assert dq.first() != dq.last() : "many elements (>1) in deque";
+        assert dq.occupied(dq.last()) : "dq.last should NOT be null";
+        assert dq.occupied(dq.first()) : "dq.first should NOT be null";
 
         // remove - first
         String item = dq.removeFirst();
         assert item.equals(strtest3);
         assert dq.size() == 2 : "dq should be size 2";
-        assert dq.first != dq.last : "many elements (>1) in deque";
+        assert dq.first() != dq.last() : "many elements (>1) in deque";
 
         item = dq.removeFirst();
         assert item.equals(strtest2);
         assert dq.size() == 1 : "dq should be size 1";
-        assert dq.first == dq.last : "only 1 element left in deque";
+        assert dq.first() == dq.last() : "only 1 element left in deque";
 
         item = dq.removeFirst();
         assert item.equals(strtest1);
         assert dq.size() == 0 : "dq should be size 0";
-        assert dq.first == dq.last : "empty";
-        assert dq.first == null : "dq.first should be null";
-        assert dq.last == null : "dq.last should be null";
+        assert dq.isEmpty() : "dq should be empty";
+        assert dq.noLoitering() : "dq should not hold any item";
     }
 
     private static void assertRmFirstFromEmptyDeque(Deque<String> dq) {
@@ -257,8 +282,7 @@ public class Deque<Item> implements Iterable<Item> {
         assert item.equals(strtest) : "expect item to be: " + strtest + " / got: " + item;
         assert dq.size() == 0 : "dq should be empty, therefore size should be 0";
         assert dq.isEmpty() : "dq should be empty";
-        assert dq.first == null : "dq.first should be null";
-        assert dq.last == null : "dq.last should be null";
+        assert dq.noLoitering() : "dq should not hold any item";
     }
 
     private static void assertRmLastFromDeque(Deque<String> dq) {
@@ -281,9 +305,9 @@ public class Deque<Item> implements Iterable<Item> {
         assert item.equals(str1) : "expect item to be: " + str1 + " / got: " + item;
         assert dq.size() == 2 : "dq should be of size 2";
         assert !dq.isEmpty() : "dq should NOT be empty";
-        assert dq.first != dq.last : "non empty";
-        assert dq.first != null : "dq.first should NOT be null";
-        assert dq.last != null : "dq.last should NOT be null";
+        assert dq.first() != dq.last() : "non empty";
+        assert dq.occupied(dq.first()) : "dq.first should NOT be null";
+        assert dq.occupied(dq.last()) : "dq.last should NOT be null";
 
         //
         for (String s : dq)
@@ -299,8 +323,7 @@ public class Deque<Item> implements Iterable<Item> {
         assert item.equals(str3) : "expect item to be: " + str3 + " / got: " + item;
         assert dq.size() == 0 : "dq should be empty, therefore size should be 0";
         assert dq.isEmpty() : "dq should be empty";
-        assert dq.first == null : "dq.first should be null";
-        assert dq.last == null : "dq.last should be null";
+        assert dq.noLoitering() : "dq should not hold any item";
     }
 
     private static void assertRmLastFromEmptyDeque(Deque<String> dq) {
@@ -325,8 +348,8 @@ public class Deque<Item> implements Iterable<Item> {
             assert jx == ix;
         }
         assert dqi.sz == 0 : "Size of dq should be 0";
-        assert dqi.first == null : "dqi.first should be null";
-        assert dqi.first == dqi.last : "dqi.last should be null";
+        assert dqi.noLoitering() : "dqi should not hold any item";
+        assert dqi.isEmpty() : "dqi should be empty";
 
         final int M = 100;
         for (int ix = 1; ix <= M; ix++) {
@@ -338,8 +361,8 @@ public class Deque<Item> implements Iterable<Item> {
             assert jx == ix;
         }
         assert dqi.sz == 0 : "Size of dq should be 0";
-        assert dqi.first == null : "dqi.first should be null";
-        assert dqi.first == dqi.last : "dqi.last should be null";
+        assert dqi.noLoitering() : "dqi should not hold any item";
+        assert dqi.isEmpty() : "dqi should be empty";
 
         // n = 1000;
         for (int ix = 1; ix <= N; ix++) {
@@ -351,16 +374,38 @@ public class Deque<Item> implements Iterable<Item> {
             assert jx == ix;
         }
         assert dqi.sz == 0 : "Size of dq should be 0";
-        assert dqi.first == null : "dqi.first should be null";
-        assert dqi.first == dqi.last : "dqi.last should be null";
+        assert dqi.noLoitering() : "dqi should not hold any item";
+        assert dqi.isEmpty() : "dqi should be empty";
 
         final int P = 1;
         dqi.addFirst(P);
         int jx = dqi.removeLast();
         assert jx == P;
         assert dqi.sz == 0 : "Size of dq should be 0";
-        assert dqi.first == null : "dqi.first should be null";
-        assert dqi.first == dqi.last : "dqi.last should be null";
+        assert dqi.noLoitering() : "dqi should not hold any item";
+        assert dqi.isEmpty() : "dqi should be empty";
     }
-}
 
+    private static void assertWrapAround() {
+        // items on both sides of index 0, through several grow and shrink steps
+        Deque<Integer> dqi = new Deque<Integer>();
+        final int N = 1000;
+        for (int ix = 1; ix <= N; ix++) {
+            dqi.addLast(ix);
+            dqi.addFirst(-ix);
+        }
+        assert dqi.size() == 2 * N;
+        int expected = -N;
+        for (int item : dqi) {
+            assert item == expected : "expect item to be: " + expected + " / got: " + item;
+            expected = expected == -1 ? 1 : expected + 1;
+        }
+        for (int ix = N; ix >= 1; ix--) {
+            assert dqi.removeFirst() == -ix;
+            assert dqi.removeLast() == ix;
+            assert dqi.noLoitering();
+        }
+        assert dqi.isEmpty();
+        assert dqi.mask + 1 == MIN_CAP : "capacity should be back to " + MIN_CAP + ", got: " + (dqi.mask + 1);
+    }
+}
@@ -1,7 +1,19 @@
 import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 public class Permutation {
+    private static final int BUFFER_SIZE = 1 << 16;
 
     /*
      * Write a client program Permutation.java that takes an integer k as a command-line argument;
@@ -9,10 +21,27 @@ public class Permutation {
      * and prints exactly k of them, uniformly at random.
      *
      * Print each item from the sequence at most once.
+     *
+     * Reservoir mode (java Permutation k -r): O(k) memory, for inputs too large to be held in a RandomizedQueue.
+     * Standard input is read through a channel by blocks of bytes, and reservoir sampling (Li's Algorithm L) jumps
+     * over a random (geometric-like) number of strings between two replacements: skipped strings are scanned
+     * for their boundaries only, never decoded (after the first k, only O(k log(n / k)) strings are).
+     *
+     * Unit testing of the reservoir mode: java -ea Permutation --test
      */
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args[0].equals("--test")) {
+            testReservoir();
+            return;
+        }
         int k = Integer.parseInt(args[0]);
+        if (args.length > 1 && args[1].equals("-r")) {
+            FileInputStream stdin = new FileInputStream(FileDescriptor.in);
+            for (String str : reservoir(k, stdin.getChannel())) StdOut.println(str);
+            return;
+        }
+
         RandomizedQueue<String> rq = new RandomizedQueue<>();
 
         while (!StdIn.isEmpty()) {
@@ -35,4 +64,155 @@ public class Permutation {
         }
 
     }
+
+    // k (whitespace separated) strings read from given channel, uniformly at random, in random order
+    static String[] reservoir(int k, ReadableByteChannel channel) throws IOException {
+        if (k < 0) throw new IllegalArgumentException("k must be >= 0");
+        String[] res = new String[k];
+        if (k == 0) return res;
+
+        Tokenizer in = new Tokenizer(channel);
+        for (int ix = 0; ix < k; ix++) {
+            res[ix] = in.next();
+            if (res[ix] == null)
+                throw new java.util.NoSuchElementException("Cannot sample " + k + " strings out of " + ix);
+        }
+
+        // Algorithm L: w is the largest of k uniforms (distribution of), skip ~ Geometric(w)
+        double w = Math.exp(Math.log(1.0 - StdRandom.uniform()) / k);
+        while (true) {
+            double skip = Math.floor(Math.log(1.0 - StdRandom.uniform()) / Math.log1p(-w));
+            if (!in.skip(skip < Long.MAX_VALUE ? (long) skip : Long.MAX_VALUE)) break;
+            String str = in.next();
+            if (str == null) break;
+            res[StdRandom.uniform(k)] = str;
+            w *= Math.exp(Math.log(1.0 - StdRandom.uniform()) / k);
+        }
+
+        StdRandom.shuffle(res);  // the first k strings are kept in input order
+        return res;
+    }
+
+    // seeded checks of reservoir(): k <= n, k > n, uniform selection
+    private static void testReservoir() throws IOException {
+        System.out.println("let's start");
+        StdRandom.setSeed(20201018L);
+
+        System.out.println("--- k <= n: k distinct strings of the input (blocks, whitespace, UTF-8) ---");
+        String big = "x".repeat(3 * BUFFER_SIZE);  // spans several blocks
+        String text = "  a\tb\n\nc \u00e9 " + big + "\r\nd e\f f ";
+        java.util.List<String> words = Arrays.asList("a", "b", "c", "\u00e9", big, "d", "e", "f");
+        for (int k = 0; k <= words.size(); k++) {
+            String[] res = reservoir(k, channel(text));
+            assert res.length == k;
+            assert new java.util.HashSet<String>(Arrays.asList(res)).size() == k : "distinct: " + Arrays.toString(res);
+            for (String str : res) assert words.contains(str) : "not in input: " + str;
+        }
+
+        System.out.println("--- k > n ---");
+        try {
+            reservoir(words.size() + 1, channel(text));
+            assert false : "k > n should throw";
+        } catch (java.util.NoSuchElementException ex) {
+            System.out.println("Intercepted expected exception: " + ex.getMessage());
+        }
+
+        System.out.println("--- uniform: each of n strings selected with probability k / n ---");
+        assertUniform(10, 3, 30000);
+        assertUniform(200, 5, 20000);  // mostly skipped strings (Algorithm L jumps)
+        System.out.println("--- Completed ---");
+    }
+
+    private static void assertUniform(int n, int k, int trials) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int ix = 0; ix < n; ix++) sb.append(ix).append(' ');
+        String text = sb.toString();
+
+        int[] count = new int[n];
+        for (int t = 0; t < trials; t++) {
+            for (String str : reservoir(k, channel(text))) count[Integer.parseInt(str)]++;
+        }
+        double expected = 1.0 * k / n, sd = Math.sqrt(expected * (1 - expected) / trials);
+        for (int ix = 0; ix < n; ix++) {
+            double freq = 1.0 * count[ix] / trials;
+            assert Math.abs(freq - expected) < 5 * sd : "string " + ix + " selected with frequency " + freq;
+        }
+    }
+
+    private static ReadableByteChannel channel(String text) {
+        return Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /*
+     * Whitespace separated strings (UTF-8) from a channel, read by blocks: the scan is on the bytes
+     * (ASCII whitespace, as any byte of a multi-byte UTF-8 character is >= 0x80).
+     */
+    private static final class Tokenizer {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+        private final byte[] bytes = buf.array();
+        private int pos = 0, lim = 0;
+        private boolean eof = false;
+        private byte[] token = new byte[64];  // bytes of the current string (may span several blocks)
+
+        Tokenizer(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        // skip n strings, false if the input ends before
+        boolean skip(long n) throws IOException {
+            for (; n > 0; n--) {
+                if (!skipSpaces()) return false;
+                while (true) {  // skip the string
+                    while (pos < lim && !isSpace(bytes[pos])) pos++;
+                    if (pos < lim || !fill()) break;
+                }
+            }
+            return true;
+        }
+
+        // next string, null at end of input
+        String next() throws IOException {
+            if (!skipSpaces()) return null;
+            int len = 0;
+            while (true) {
+                int start = pos;
+                while (pos < lim && !isSpace(bytes[pos])) pos++;
+                if (len + pos - start > token.length) token = Arrays.copyOf(token, 2 * (len + pos - start));
+                System.arraycopy(bytes, start, token, len, pos - start);
+                len += pos - start;
+                if (pos < lim || !fill()) break;
+            }
+            return new String(token, 0, len, StandardCharsets.UTF_8);
+        }
+
+        // skip to the start of the next string, false at end of input
+        private boolean skipSpaces() throws IOException {
+            while (true) {
+                while (pos < lim && isSpace(bytes[pos])) pos++;
+                if (pos < lim) return true;
+                if (!fill()) return false;
+            }
+        }
+
+        // read the next block, false at end of input
+        private boolean fill() throws IOException {
+            while (!eof) {
+                buf.clear();
+                int num = channel.read(buf);
+                if (num < 0) eof = true;
+                else if (num > 0) {
+                    pos = 0;
+                    lim = num;
+                    return true;
+                }
+            }
+            pos = lim = 0;
+            return false;
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+        }
+    }
 }
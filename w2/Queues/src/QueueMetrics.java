@@ -0,0 +1,259 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/*
+ * Optional instrumentation of the queues (Deque, RandomizedQueue): operation counts, resize events, peak size
+ * and sampled latency histograms, aggregated per kind of queue and exported through JMX
+ * as algo.queues:type=<kind>.
+ *
+ * Off unless the JVM runs with -Dqueues.metrics=true: each queue class holds its metrics in a static final field,
+ * null when off, so that the JIT folds the "if (METRICS != null)" guards and the instrumented code compiles
+ * to the same code as without instrumentation.
+ * When on: counters are LongAdders (queues of a kind may be used by several threads), one operation in
+ * SAMPLE_RATE is timed (System.nanoTime() twice).
+ */
+public final class QueueMetrics implements QueueMetricsMBean {
+    public static final boolean ENABLED = Boolean.getBoolean("queues.metrics");
+
+    private static final int SAMPLE_MASK = 63;  // one operation timed in SAMPLE_MASK + 1
+
+    private final LongAdder adds = new LongAdder();
+    private final LongAdder removes = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder grows = new LongAdder();
+    private final LongAdder shrinks = new LongAdder();
+    private final LongAccumulator peakSize = new LongAccumulator(Math::max, 0L);
+    private final Histogram latency = new Histogram();
+    private int tick;  // sampling counter, racy on purpose (a lost increment only shifts the sampling)
+
+    /*
+     * Log-linear histogram (HdrHistogram-like) of non-negative values: values < 2^SUB_BITS have their own bucket,
+     * above that each power of 2 is split into 2^SUB_BITS buckets, i.e. a relative error below 2^-SUB_BITS (12.5%).
+     */
+    static final class Histogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB = 1 << SUB_BITS;
+        private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS + 1) * SUB);
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+        private final LongAdder total = new LongAdder();
+
+        void record(long value) {
+            counts.incrementAndGet(bucket(value));
+            max.accumulate(value);
+            total.increment();
+        }
+
+        long count() {
+            return total.sum();
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        // smallest bucket upper bound with at least a fraction q of the values at or below it, 0 if empty
+        long quantile(double q) {
+            long n = 0;
+            for (int b = 0; b < counts.length(); b++) n += counts.get(b);
+            if (n == 0) return 0;
+
+            long rank = (long) Math.ceil(q * n), cum = 0;
+            for (int b = 0; b < counts.length(); b++) {
+                cum += counts.get(b);
+                if (cum >= Math.max(1, rank)) return Math.min(upper(b), max());
+            }
+            return max();
+        }
+
+        void reset() {
+            for (int b = 0; b < counts.length(); b++) counts.set(b, 0);
+            max.reset();
+            total.reset();
+        }
+
+        static int bucket(long value) {
+            if (value < SUB) return (int) Math.max(0, value);
+            int exp = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;  // value >> exp in [SUB, 2 * SUB)
+            return (exp + 1) * SUB + (int) (value >>> exp) - SUB;
+        }
+
+        // largest value of bucket b
+        static long upper(int b) {
+            if (b < SUB) return b;
+            int exp = b / SUB - 1;
+            long low = (long) (SUB + b % SUB) << exp;
+            return low + (1L << exp) - 1;
+        }
+    }
+
+    private QueueMetrics() {
+    }
+
+    // metrics of given kind of queue (registered as an MBean), null when instrumentation is off
+    static QueueMetrics of(String kind) {
+        if (!ENABLED) return null;
+
+        QueueMetrics metrics = new QueueMetrics();
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                             .registerMBean(metrics, new ObjectName("algo.queues:type=" + kind));
+        }
+        catch (JMException ex) {
+            throw new IllegalStateException("cannot register metrics of " + kind, ex);
+        }
+        return metrics;
+    }
+
+    // start of an operation: its start time if sampled, else 0
+    long start() {
+        return (++tick & SAMPLE_MASK) == 0 ? System.nanoTime() : 0L;
+    }
+
+    void added(long start, int size) {
+        adds.increment();
+        peakSize.accumulate(size);
+        end(start);
+    }
+
+    // ditto, batch of k items
+    void added(long start, int k, int size) {
+        adds.add(k);
+        peakSize.accumulate(size);
+        end(start);
+    }
+
+    void removed(long start, int k) {
+        removes.add(k);
+        end(start);
+    }
+
+    void sampled(long start, int k) {
+        samples.add(k);
+        end(start);
+    }
+
+    void resized(int oldCap, int newCap) {
+        if (newCap > oldCap) grows.increment();
+        else shrinks.increment();
+    }
+
+    private void end(long start) {
+        if (start != 0L) latency.record(System.nanoTime() - start);
+    }
+
+    public long getAdds() {
+        return adds.sum();
+    }
+
+    public long getRemoves() {
+        return removes.sum();
+    }
+
+    public long getSamples() {
+        return samples.sum();
+    }
+
+    public long getGrows() {
+        return grows.sum();
+    }
+
+    public long getShrinks() {
+        return shrinks.sum();
+    }
+
+    public long getPeakSize() {
+        return peakSize.get();
+    }
+
+    public long getLatencyCount() {
+        return latency.count();
+    }
+
+    public long getLatencyP50() {
+        return latency.quantile(0.5);
+    }
+
+    public long getLatencyP90() {
+        return latency.quantile(0.9);
+    }
+
+    public long getLatencyP99() {
+        return latency.quantile(0.99);
+    }
+
+    public long getLatencyP999() {
+        return latency.quantile(0.999);
+    }
+
+    public long getLatencyMax() {
+        return latency.max();
+    }
+
+    public void reset() {
+        adds.reset();
+        removes.reset();
+        samples.reset();
+        grows.reset();
+        shrinks.reset();
+        peakSize.reset();
+        latency.reset();
+    }
+
+    // unit testing (java -ea -Dqueues.metrics=true QueueMetrics, for the JMX part)
+    public static void main(String[] args) throws JMException {
+        System.out.println("let's start");
+
+        System.out.println("--- histogram buckets: contiguous, relative error < 12.5% ---");
+        for (long v = 0; v < 1 << 20; v++) {
+            int b = Histogram.bucket(v);
+            assert Histogram.upper(b) >= v && (b == 0 || Histogram.upper(b - 1) < v) : "value " + v + ", bucket " + b;
+            assert Histogram.upper(b) - v <= v / 8 : "value " + v + ", bucket upper " + Histogram.upper(b);
+        }
+        assert Histogram.upper(Histogram.bucket(Long.MAX_VALUE)) == Long.MAX_VALUE;
+
+        Histogram h = new Histogram();
+        for (int v = 1; v <= 1000; v++) h.record(v);
+        assert h.count() == 1000 && h.max() == 1000;
+        assert Math.abs(h.quantile(0.5) - 500) <= 500 / 8 : "p50: " + h.quantile(0.5);
+        assert Math.abs(h.quantile(0.99) - 990) <= 990 / 8 : "p99: " + h.quantile(0.99);
+        assert h.quantile(1.0) == 1000;
+
+        if (!ENABLED) {
+            System.out.println("(instrumentation off, run with -Dqueues.metrics=true for the queues' metrics)");
+            return;
+        }
+
+        System.out.println("--- Deque / RandomizedQueue metrics through JMX ---");
+        final int N = 1000;
+        Deque<Integer> dq = new Deque<Integer>();
+        for (int ix = 0; ix < N; ix++) dq.addLast(ix);
+        for (int ix = 0; ix < N; ix++) dq.removeFirst();
+        RandomizedQueue<Integer> rq = new RandomizedQueue<Integer>();
+        for (int ix = 0; ix < N; ix++) rq.enqueue(ix);
+        rq.sample();
+        rq.dequeue(N / 2, new Integer[N / 2]);
+
+        javax.management.MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName dqName = new ObjectName("algo.queues:type=Deque");
+        ObjectName rqName = new ObjectName("algo.queues:type=RandomizedQueue");
+        assert (Long) server.getAttribute(dqName, "Adds") == N;
+        assert (Long) server.getAttribute(dqName, "Removes") == N;
+        assert (Long) server.getAttribute(dqName, "PeakSize") == N;
+        assert (Long) server.getAttribute(dqName, "Grows") == 7 : "8 -> 1024";
+        assert (Long) server.getAttribute(dqName, "Shrinks") == 7 : "1024 -> 8";
+        assert (Long) server.getAttribute(dqName, "LatencyCount") == 2 * N / (SAMPLE_MASK + 1);
+        assert (Long) server.getAttribute(rqName, "Adds") == N;
+        assert (Long) server.getAttribute(rqName, "Removes") == N / 2;
+        assert (Long) server.getAttribute(rqName, "Samples") == 1;
+        server.invoke(rqName, "reset", null, null);
+        assert (Long) server.getAttribute(rqName, "Adds") == 0;
+        System.out.println("Deque p50/p99/max latency (ns): " + server.getAttribute(dqName, "LatencyP50") + " / "
+                                   + server.getAttribute(dqName, "LatencyP99") + " / "
+                                   + server.getAttribute(dqName, "LatencyMax"));
+        System.out.println("--- Completed ---");
+    }
+}
@@ -0,0 +1,29 @@
+// JMX view of QueueMetrics (standard MBean), aggregated over all the queues of a kind
+public interface QueueMetricsMBean {
+    long getAdds();
+
+    long getRemoves();
+
+    long getSamples();
+
+    long getGrows();
+
+    long getShrinks();
+
+    long getPeakSize();
+
+    // sampled operation latencies, nanoseconds
+    long getLatencyCount();
+
+    long getLatencyP50();
+
+    long getLatencyP90();
+
+    long getLatencyP99();
+
+    long getLatencyP999();
+
+    long getLatencyMax();
+
+    void reset();
+}
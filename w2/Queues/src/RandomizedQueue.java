@@ -1,8 +1,14 @@
 import edu.princeton.cs.algs4.StdRandom;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 public class RandomizedQueue<Item> implements Iterable<Item> {
+    private static final QueueMetrics METRICS = QueueMetrics.of("RandomizedQueue");  // null unless instrumented
+
     private Item[] q;
     private int cap, sz;
 
@@ -10,21 +16,23 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
      * Each iterator must return the items in uniformly random order.
      * The order of two or more iterators to the same randomized queue must be mutually independent;
      * each iterator must maintain i ts own random order.
+     *
+     * Lazy Fisher-Yates shuffle of the indexes 0..n-1: the k-th item is drawn among the n - k not yet returned,
+     * the swaps being recorded in a small map (an index absent from it is at its own place), so that reading
+     * k items costs O(k) time and memory, whatever the size of the queue.
      */
     private class QueueIterator implements Iterator<Item> {
         private int current; // = head;
-        private final int[] ixes;  // to keep track of indexes already accessed
+        private final int n;  // number of items when the iterator was created
+        private final SwapMap swaps = new SwapMap();  // to keep track of indexes already accessed
 
         public QueueIterator() {
             current = 0;
-            ixes = new int[sz];
-            for (int ix = 0; ix < sz; ix++)
-                ixes[ix] = ix;
-            StdRandom.shuffle(ixes); // Random shuffle the indexes in ixes
+            n = sz;
         }
 
         public boolean hasNext() {
-            return current < sz;
+            return current < n;
         }
 
         public void remove() {
@@ -33,16 +41,132 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 
         // Throw a java.util.NoSuchElementException if the client calls the next() method in the iterator when there are no more items to return.
         public Item next() {
-            if (current == sz)
+            if (current >= n)
                 throw new java.util.NoSuchElementException("No more item");
 
-            Item item = q[ixes[current]];
+            int jx = StdRandom.uniform(current, n);
+            int ix = swaps.get(jx);
+            swaps.put(jx, swaps.get(current)); // index at current is never read again
             current++;
-            return item;
+            return q[ix];
+        }
+    }
+
+    /*
+     * Low memory iterator: the indexes 0..n-1 in the order of a keyed pseudo-random permutation, O(1) memory.
+     * Feistel network (4 rounds, random keys) on the smallest even number of bits 2h such that n <= 2^2h,
+     * i.e. a bijection on 0..2^2h-1, restricted to 0..n-1 by filtering: the inputs 0, 1, 2, ... are permuted in
+     * turn and the outputs >= n discarded (less than 4 inputs per item on average, as 2^2h < 4n).
+     * Not all the n! orders are reachable (unlike QueueIterator), but the order looks random and each iterator
+     * has its own keys.
+     */
+    private class FeistelIterator implements Iterator<Item> {
+        private static final int ROUNDS = 4;
+        private final int n;
+        private final int halfBits, halfMask;
+        private final int[] keys = new int[ROUNDS];
+        private int produced;  // number of items returned
+        private long counter;  // next input of the permutation
+
+        public FeistelIterator() {
+            n = sz;
+            int bits = 64 - Long.numberOfLeadingZeros(Math.max(1, n - 1));  // n <= 2^bits
+            halfBits = (bits + 1) / 2;
+            halfMask = (1 << halfBits) - 1;
+            for (int r = 0; r < ROUNDS; r++) keys[r] = StdRandom.uniform(Integer.MAX_VALUE);
+        }
+
+        public boolean hasNext() {
+            return produced < n;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Not implemented");
+        }
+
+        public Item next() {
+            if (produced >= n)
+                throw new java.util.NoSuchElementException("No more item");
+
+            /*
+             * counter stays below 2^2h <= 2^32 (a bijection, the n indexes are output before the domain is exhausted).
+             * When 2h == 32 (n > 2^30), the int cast keeps the same 32 bits, taken as unsigned by permute()
+             * (>>>, masks), and its outputs >= 2^31 (negative as an int) are out of range.
+             */
+            int ix;
+            do {
+                ix = permute((int) counter++);
+            } while (ix < 0 || ix >= n);
+            produced++;
+            return q[ix];
+        }
+
+        private int permute(int x) {
+            int left = x >>> halfBits, right = x & halfMask;
+            for (int r = 0; r < ROUNDS; r++) {
+                int nl = right;
+                right = left ^ (mix(right ^ keys[r]) & halfMask);
+                left = nl;
+            }
+            return left << halfBits | right;
+        }
+
+        // murmur3 finalizer
+        private int mix(int h) {
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    // int -> int map, open addressing (linear probing), for the swaps of QueueIterator: get(ix) == ix when absent
+    private static final class SwapMap {
+        private int[] keys = new int[16];  // key + 1, 0 for an empty slot
+        private int[] vals = new int[16];
+        private int size;
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int ix = hash(key) & mask; keys[ix] != 0; ix = (ix + 1) & mask) {
+                if (keys[ix] == key + 1) return vals[ix];
+            }
+            return key;
+        }
+
+        void put(int key, int val) {
+            int mask = keys.length - 1;
+            int ix = hash(key) & mask;
+            for (; keys[ix] != 0; ix = (ix + 1) & mask) {
+                if (keys[ix] == key + 1) {
+                    vals[ix] = val;
+                    return;
+                }
+            }
+            keys[ix] = key + 1;
+            vals[ix] = val;
+            if (++size > keys.length / 2) rehash();
+        }
+
+        private void rehash() {
+            int[] oks = keys, ovs = vals;
+            keys = new int[2 * oks.length];
+            vals = new int[2 * oks.length];
+            size = 0;
+            for (int ix = 0; ix < oks.length; ix++) {
+                if (oks[ix] != 0) put(oks[ix] - 1, ovs[ix]);
+            }
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
         }
     }
 
     // construct an empty randomized queue
+    @SuppressWarnings("unchecked")
     public RandomizedQueue() {
         this.cap = 4;
         this.q = (Item[]) new Object[this.cap];
@@ -63,8 +187,10 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
     public void enqueue(Item item) {
         checkItem(item);
         assert this.sz >= 0;
+        long t0 = METRICS != null ? METRICS.start() : 0L;
         if (this.sz == this.cap) resize(2 * this.cap);
         this.q[this.sz++] = item;
+        if (METRICS != null) METRICS.added(t0, this.sz);
     }
 
     // remove and return a random item
@@ -72,20 +198,85 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         if (this.sz == 0)
             throw new java.util.NoSuchElementException("Cannot remove item from empty YaQueue");
 
+        long t0 = METRICS != null ? METRICS.start() : 0L;
         int ix = StdRandom.uniform(this.sz);
         Item item = this.q[ix];
         swap(ix); // also decr this.sz
 
         if (this.sz == this.cap / 4) resize(this.cap / 2);
+        if (METRICS != null) METRICS.removed(t0, 1);
         return item;
     }
 
+    // add all the items (none is added if one of them is null), growing the array at most once
+    public void enqueueAll(Item[] items) {
+        if (items == null) throw new IllegalArgumentException("items cannot be null");
+        addAll(items);
+    }
+
+    // ditto
+    public void enqueueAll(Collection<? extends Item> items) {
+        if (items == null) throw new IllegalArgumentException("items cannot be null");
+        addAll(items.toArray());
+    }
+
+    /*
+     * remove k random (distinct) items, stored in out[0..k-1], in one pass (swap with last element, as dequeue())
+     * and shrinking the array at most once
+     */
+    public void dequeue(int k, Item[] out) {
+        checkK(k);
+        if (out == null || out.length < k)
+            throw new IllegalArgumentException("out must hold at least k items");
+        if (k > this.sz)
+            throw new java.util.NoSuchElementException("Cannot remove " + k + " items from YaQueue of size " + this.sz);
+
+        long t0 = METRICS != null ? METRICS.start() : 0L;
+        for (int jx = 0; jx < k; jx++) {
+            int ix = StdRandom.uniform(this.sz);
+            out[jx] = this.q[ix];
+            swap(ix); // also decr this.sz
+        }
+
+        int newCap = this.cap;
+        while (this.sz <= newCap / 4 && newCap > 1) newCap /= 2;
+        if (newCap != this.cap) resize(newCap);
+        if (METRICS != null) METRICS.removed(t0, k);
+    }
+
+    /*
+     * return k random (distinct) items (but do not remove them): partial Fisher-Yates shuffle of the array,
+     * then the swaps are undone (in reverse order) so that the queue is left as is, O(k)
+     */
+    public List<Item> sample(int k) {
+        checkK(k);
+        if (k > this.sz)
+            throw new java.util.NoSuchElementException("Cannot sample " + k + " items from YaQueue of size " + this.sz);
+
+        long t0 = METRICS != null ? METRICS.start() : 0L;
+        List<Item> items = new ArrayList<Item>(k);
+        int[] swapped = new int[k];
+        for (int ix = 0; ix < k; ix++) {
+            int jx = StdRandom.uniform(ix, this.sz);
+            swapped[ix] = jx;
+            exch(ix, jx);
+            items.add(this.q[ix]);
+        }
+        for (int ix = k - 1; ix >= 0; ix--) exch(ix, swapped[ix]);
+        if (METRICS != null) METRICS.sampled(t0, k);
+        return items;
+    }
+
     // return a random item (but do not remove it)
     public Item sample() {
         if (this.sz == 0)
             throw new java.util.NoSuchElementException("Cannot sample from empty YaQueue");
 
-        return q[StdRandom.uniform(this.sz)];
+        if (METRICS == null) return q[StdRandom.uniform(this.sz)];
+        long t0 = METRICS.start();
+        Item item = q[StdRandom.uniform(this.sz)];
+        METRICS.sampled(t0, 1);
+        return item;
     }
 
     // return an independent iterator over items in random order
@@ -93,6 +284,11 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         return new QueueIterator();
     }
 
+    // ditto, in O(1) memory (pseudo-random order, see FeistelIterator), for very large queues
+    public Iterator<Item> lowMemoryIterator() {
+        return new FeistelIterator();
+    }
+
     // unit testing (required)
     public static void main(String[] args) {
         System.out.println("let's start");
@@ -104,6 +300,8 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         assertEnqueueDequeue();
         assertPartialEnqueueDequeue();
         assertDequeSingletonQueue();
+        assertIterators();
+        assertBatch();
         System.out.println("Completed!");
     }
 
@@ -115,18 +313,48 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         this.sz--;
     }
 
+    private void exch(int ix, int jx) {
+        Item item = this.q[ix];
+        this.q[ix] = this.q[jx];
+        this.q[jx] = item;
+    }
+
     // extend or shrink size of underlying array
+    @SuppressWarnings("unchecked")
     private void resize(int newCap) {
         if (newCap == 0) return;
+        if (METRICS != null) METRICS.resized(this.cap, newCap);
 
         Item[] cq = (Item[]) new Object[newCap];
         this.cap = newCap;
-        for (int ix = 0; ix < this.sz; ix++)
-            cq[ix] = this.q[ix];
+        System.arraycopy(this.q, 0, cq, 0, this.sz);
         this.q = cq;
     }
 
-    private void checkItem(Item item) {
+    // append items (checked first), the array being grown (doubled as many times as needed) at most once
+    private void addAll(Object[] items) {
+        for (Object item : items) checkItem(item);
+        if ((long) this.sz + items.length > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("too many items: " + this.sz + " + " + items.length);
+
+        long t0 = METRICS != null ? METRICS.start() : 0L;
+        int newCap = this.cap;
+        while (newCap < this.sz + items.length) newCap = (int) Math.min(2L * newCap, Integer.MAX_VALUE);
+        if (newCap != this.cap) resize(newCap);
+        System.arraycopy(items, 0, this.q, this.sz, items.length);
+        this.sz += items.length;
+        if (METRICS != null) METRICS.added(t0, items.length, this.sz);
+    }
+
+    private Item at(int ix) {
+        return this.q[ix];
+    }
+
+    private void checkK(int k) {
+        if (k < 0) throw new IllegalArgumentException("k must be >= 0");
+    }
+
+    private void checkItem(Object item) {
         if (item == null)
             throw new IllegalArgumentException("item cannot be null");
     }
@@ -244,4 +472,78 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         System.out.println("IteratorS: ");
         for (int i : rq) System.out.println(i);
     }
+
+    private static void assertIterators() {
+        System.out.println("--- Assert iterators: each item exactly once ---");
+        for (int n : new int[] { 0, 1, 2, 3, 5, 64, 65, 1000, 4097 }) {
+            RandomizedQueue<Integer> rq = new RandomizedQueue<Integer>();
+            for (int ix = 0; ix < n; ix++) rq.enqueue(ix);
+            for (int pass = 0; pass < 2; pass++) {
+                Iterator<Integer> it = pass == 0 ? rq.iterator() : rq.lowMemoryIterator();
+                boolean[] seen = new boolean[n];
+                for (int ix = 0; ix < n; ix++) {
+                    assert it.hasNext();
+                    int item = it.next();
+                    assert !seen[item] : "item " + item + " returned twice, n: " + n;
+                    seen[item] = true;
+                }
+                assert !it.hasNext();
+            }
+        }
+
+        // lazy iterator: first item uniformly distributed
+        final int N = 8, TRIALS = 80000;
+        RandomizedQueue<Integer> rq = new RandomizedQueue<Integer>();
+        for (int ix = 0; ix < N; ix++) rq.enqueue(ix);
+        int[] count = new int[N];
+        for (int t = 0; t < TRIALS; t++) count[rq.iterator().next()]++;
+        for (int ix = 0; ix < N; ix++)
+            assert Math.abs(count[ix] - TRIALS / N) < 600 : "item " + ix + " first " + count[ix] + " times";
+    }
+
+    private static void assertBatch() {
+        System.out.println("--- Assert batch enqueue/dequeue/sample ---");
+        RandomizedQueue<Integer> rq = new RandomizedQueue<Integer>();
+
+        final int N = 120;
+        Integer[] items = new Integer[N];
+        for (int ix = 0; ix < N; ix++) items[ix] = ix + 1;
+        rq.enqueueAll(items);
+        assert rq.size() == N : "rq should be of size " + Integer.toString(N);
+        assert rq.cap == 128 : "rq should be of size 128, got: " + Integer.toString(rq.cap); // as one by one
+
+        List<Integer> more = new ArrayList<Integer>();
+        for (int ix = 1; ix <= N; ix++) more.add(ix + N);
+        rq.enqueueAll(more);
+        assert rq.size() == 2 * N && rq.cap == 256 : "rq should be of size 256, got: " + Integer.toString(rq.cap);
+
+        more.set(N / 2, null);
+        try {
+            rq.enqueueAll(more);
+            assert false : "null item should be rejected";
+        } catch (IllegalArgumentException ex) {
+            assert rq.size() == 2 * N : "no item should have been added";
+        }
+
+        // sample: k distinct items, queue unchanged
+        List<Integer> sample = rq.sample(N);
+        assert sample.size() == N && new java.util.HashSet<Integer>(sample).size() == N : "distinct items expected";
+        for (int ix = 0; ix < 2 * N; ix++) assert rq.at(ix) == ix + 1 : "sample should leave the queue as is";
+
+        // dequeue: k distinct items, removed
+        Integer[] out = new Integer[N + N / 2], rest = new Integer[N / 2];
+        rq.dequeue(out.length, out);
+        assert rq.size() == N / 2;
+        rq.dequeue(rest.length, rest);
+        assert rq.isEmpty() && rq.cap == 1 : "rq should be empty, cap: " + Integer.toString(rq.cap);
+        java.util.HashSet<Integer> seen = new java.util.HashSet<Integer>(Arrays.asList(out));
+        seen.addAll(Arrays.asList(rest));
+        assert seen.size() == 2 * N : "each item should be dequeued once";
+        try {
+            rq.dequeue(1, out);
+            assert false : "dequeue(1) from empty queue should throw";
+        } catch (java.util.NoSuchElementException ex) {
+            System.out.println("Intercepted expected exception: " + ex.getMessage());
+        }
+    }
 }
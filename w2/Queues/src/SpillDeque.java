@@ -0,0 +1,265 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/*
+ * Deque spilling to disk: items are serialized (by given encoder/decoder) as records [length (int), bytes]
+ * in fixed-size chunk files, memory-mapped, so that the number of items is bounded by the disk rather than by
+ * the heap. Only two chunks are mapped at any time, the head one (read by removeFirst) and the tail one
+ * (appended to by addLast), whatever the number of chunks in between; a chunk file is deleted once it has been
+ * consumed and its buffer dropped (at a later chunk switch or on close: some platforms, e.g. Windows, refuse
+ * to delete a file still mapped, the mapping going away only when the buffer is gc'ed).
+ * addLast/removeFirst are O(1) (plus the (de)serialization of the item).
+ *
+ * FIFO ends only (addLast/removeFirst): the buffering use case. A record does not span chunks (a length of -1
+ * marks the end of a chunk when the next record does not fit), hence must fit in a chunk.
+ */
+public class SpillDeque<Item> implements Iterable<Item>, AutoCloseable {
+    private static final int DEFAULT_CHUNK_SIZE = 64 << 20;  // 64 MB
+    private static final int END = -1;                        // end of chunk marker
+
+    private final Path dir;
+    private final int chunkSize;
+    private final Function<Item, byte[]> encoder;
+    private final Function<byte[], Item> decoder;
+
+    private long size = 0;
+    private long headId = 0, tailId = 0;  // chunks headId..tailId exist on disk
+    private MappedByteBuffer head, tail;  // same buffer when headId == tailId
+    private int headPos = 0;              // next record to read in the head chunk
+    private final ArrayDeque<Long> consumed = new ArrayDeque<Long>();  // chunks consumed, not deleted yet
+    // (the write position of the tail chunk is tail.position())
+
+    private class ChunkIterator implements Iterator<Item> {
+        private long id = headId, left = size;
+        private MappedByteBuffer buf = head.duplicate();  // fresh position: reading does not move head/tail
+        private int pos = headPos;
+
+        public boolean hasNext() {
+            return left > 0;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Not implemented");
+        }
+
+        public Item next() {
+            if (left == 0)
+                throw new java.util.NoSuchElementException("No more item");
+
+            int len = pos + 4 <= chunkSize ? buf.getInt(pos) : END;
+            if (len == END) {  // intermediate chunks are mapped one at a time, read-only
+                id++;
+                buf = id == tailId ? tail : map(id, FileChannel.MapMode.READ_ONLY);
+                pos = 0;
+                len = buf.getInt(0);
+            }
+            byte[] bytes = new byte[len];
+            buf.get(pos + 4, bytes);
+            pos += 4 + len;
+            left--;
+            return decoder.apply(bytes);
+        }
+    }
+
+    // construct an empty deque storing its chunks (of default size, 64 MB) in given directory
+    public SpillDeque(Path dir, Function<Item, byte[]> encoder, Function<byte[], Item> decoder) {
+        this(dir, DEFAULT_CHUNK_SIZE, encoder, decoder);
+    }
+
+    // ditto, with given chunk size (bytes)
+    public SpillDeque(Path dir, int chunkSize, Function<Item, byte[]> encoder, Function<byte[], Item> decoder) {
+        if (dir == null) throw new IllegalArgumentException("dir cannot be null");
+        if (chunkSize < 8) throw new IllegalArgumentException("chunkSize must be >= 8");
+        if (encoder == null || decoder == null) throw new IllegalArgumentException("encoder/decoder cannot be null");
+
+        this.dir = dir;
+        this.chunkSize = chunkSize;
+        this.encoder = encoder;
+        this.decoder = decoder;
+        try {
+            Files.createDirectories(dir);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        this.tail = map(0, FileChannel.MapMode.READ_WRITE);
+        this.head = this.tail;
+    }
+
+    // deque of strings (UTF-8)
+    public static SpillDeque<String> ofStrings(Path dir, int chunkSize) {
+        return new SpillDeque<String>(dir, chunkSize, s -> s.getBytes(StandardCharsets.UTF_8),
+                                      b -> new String(b, StandardCharsets.UTF_8));
+    }
+
+    // is the deque empty?
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    // return the number of items on the deque
+    public long size() {
+        return this.size;
+    }
+
+    // add the item to the back
+    public void addLast(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("item cannot be null");
+        byte[] bytes = this.encoder.apply(item);
+        if (bytes.length > this.chunkSize - 4)
+            throw new IllegalArgumentException("item too large: " + bytes.length + " bytes, chunk: " + this.chunkSize);
+
+        int pos = this.tail.position();
+        if (pos + 4 + bytes.length > this.chunkSize) {  // next chunk
+            if (pos + 4 <= this.chunkSize) this.tail.putInt(pos, END);
+            this.tailId++;
+            this.tail = map(this.tailId, FileChannel.MapMode.READ_WRITE);
+            pos = 0;
+        }
+        this.tail.putInt(pos, bytes.length);
+        this.tail.put(pos + 4, bytes);
+        this.tail.position(pos + 4 + bytes.length);
+        this.size++;
+    }
+
+    // remove and return the item from the front
+    public Item removeFirst() {
+        if (this.isEmpty())
+            throw new java.util.NoSuchElementException("Cannot remove item from empty Deque");
+
+        int len = this.headPos + 4 <= this.chunkSize ? this.head.getInt(this.headPos) : END;
+        if (len == END) {  // head chunk consumed
+            this.consumed.add(this.headId);
+            this.headId++;
+            this.head = this.headId == this.tailId ? this.tail : map(this.headId, FileChannel.MapMode.READ_WRITE);
+            deleteConsumed();
+            this.headPos = 0;
+            len = this.head.getInt(0);
+        }
+        byte[] bytes = new byte[len];
+        this.head.get(this.headPos + 4, bytes);
+        this.headPos += 4 + len;
+        this.size--;
+        if (this.size == 0 && this.headId == this.tailId) {  // empty: rewind (no new chunk needed)
+            this.headPos = 0;
+            this.tail.position(0);
+        }
+        return this.decoder.apply(bytes);
+    }
+
+    // return an iterator over items in order from front to back
+    public Iterator<Item> iterator() {
+        return new ChunkIterator();
+    }
+
+    // delete the remaining chunk files (the deque cannot be used afterwards)
+    public void close() {
+        this.head = this.tail = null;
+        for (long id = this.headId; id <= this.tailId; id++) this.consumed.add(id);
+        deleteConsumed();
+        for (long id : this.consumed) chunk(id).toFile().deleteOnExit();  // still mapped: last resort
+        this.consumed.clear();
+    }
+
+    // unit testing
+    public static void main(String[] args) throws IOException {
+        System.out.println("let's start");
+        Path dir = Files.createTempDirectory("spill");
+        final int CHUNK = 64;
+
+        try (SpillDeque<String> dq = SpillDeque.ofStrings(dir, CHUNK)) {
+            assert dq.isEmpty() && dq.size() == 0;
+            try {
+                dq.removeFirst();
+                assert false : "removeFirst() on empty deque should throw";
+            } catch (java.util.NoSuchElementException ex) {
+                System.out.println("Intercepted expected exception: " + ex.getMessage());
+            }
+
+            System.out.println("--- FIFO across many chunks ---");
+            final int N = 10000;
+            for (int ix = 0; ix < N; ix++) dq.addLast("item-" + ix);
+            assert dq.size() == N;
+            assert numFiles(dir) > N / 8 : "items should be spread over many chunks";
+            int ix = 0;
+            for (String item : dq) assert item.equals("item-" + ix++) : "iterator order, got: " + item;
+            assert ix == N && dq.size() == N : "iterating should not consume";
+
+            for (ix = 0; ix < N / 2; ix++) {
+                String item = dq.removeFirst();
+                assert item.equals("item-" + ix) : "expect item to be: item-" + ix + " / got: " + item;
+                dq.addLast("item-" + (N + ix));  // interleaved
+            }
+            for (ix = N / 2; ix < N + N / 2; ix++) assert dq.removeFirst().equals("item-" + ix);
+            assert dq.isEmpty();
+            assert numFiles(dir) == 1 : "consumed chunks should be deleted, left: " + numFiles(dir);
+
+            System.out.println("--- records filling a chunk exactly, empty record, too large record ---");
+            dq.addLast("x".repeat(CHUNK - 4));  // length + bytes = CHUNK
+            dq.addLast("");
+            dq.addLast("\u00e9");
+            assert dq.removeFirst().length() == CHUNK - 4;
+            assert dq.removeFirst().isEmpty();
+            assert dq.removeFirst().equals("\u00e9");
+            try {
+                dq.addLast("x".repeat(CHUNK - 3));
+                assert false : "item larger than a chunk should be rejected";
+            } catch (IllegalArgumentException ex) {
+                System.out.println("Intercepted expected exception: " + ex.getMessage());
+            }
+        }
+        assert numFiles(dir) == 0 : "close() should delete the chunk files";
+        Files.delete(dir);
+        System.out.println("--- Completed ---");
+    }
+
+    private Path chunk(long id) {
+        return this.dir.resolve("chunk-" + id + ".dat");
+    }
+
+    // map chunk id (created if need be, of chunkSize bytes)
+    private MappedByteBuffer map(long id, FileChannel.MapMode mode) {
+        StandardOpenOption[] opts = mode == FileChannel.MapMode.READ_ONLY
+                                    ? new StandardOpenOption[] { StandardOpenOption.READ }
+                                    : new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                                                 StandardOpenOption.CREATE };
+        try (FileChannel ch = FileChannel.open(chunk(id), opts)) {
+            return ch.map(mode, 0, this.chunkSize);  // the mapping outlives the channel
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /*
+     * Delete the consumed chunk files that can be, the others are retried later.
+     * Where a mapped file can be deleted (POSIX), it goes away once unmapped and its pages are not written back.
+     */
+    private void deleteConsumed() {
+        for (int k = this.consumed.size(); k > 0; k--) {
+            long id = this.consumed.poll();
+            try {
+                Files.deleteIfExists(chunk(id));
+            }
+            catch (IOException ex) {
+                this.consumed.add(id);  // still mapped
+            }
+        }
+    }
+
+    private static long numFiles(Path dir) throws IOException {
+        try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.HashMap;
+import java.util.Iterator;
+
+/*
+ * Randomized queue where each item is drawn with probability proportional to its weight (> 0), which can be
+ * updated at any time: O(log n) enqueue, dequeue, sample and weight update.
+ *
+ * Items are kept in an array (capacity a power of 2, removal by swap with last element, as in RandomizedQueue),
+ * their weights in a Fenwick tree indexed by position in the array: a weighted draw is a descent in the tree
+ * (smallest position whose prefix sum of weights exceeds a uniform in [0, total)).
+ * A map from item to position addresses the items for the weight updates, hence items must be distinct
+ * (per equals/hashCode).
+ */
+public class WeightedRandomizedQueue<Item> implements Iterable<Item> {
+    private static final int MIN_CAP = 4;
+
+    private Item[] q;
+    private double[] w;       // w[ix]: weight of item q[ix], 0 for ix >= sz
+    private double[] tree;    // Fenwick tree (1-based) of the weights, tree[cap] = total weight
+    private int cap, sz;
+    private int updates;      // incremental tree updates since the last rebuild
+    private final HashMap<Item, Integer> pos = new HashMap<Item, Integer>();
+
+    /*
+     * Items in random weighted order, i.e. successive draws without replacement:
+     * each iterator works on its own copy of the weights (O(n) once, then O(log n) per item).
+     */
+    private class QueueIterator implements Iterator<Item> {
+        private final Item[] items;
+        private final double[] wts, fen;
+        private final int n;  // number of items when the iterator was created
+        private int current;
+
+        public QueueIterator() {
+            items = q;  // items are only read, a snapshot of the array is enough unless the queue is modified
+            wts = w.clone();
+            fen = tree.clone();
+            n = sz;
+        }
+
+        public boolean hasNext() {
+            return current < n;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Not implemented");
+        }
+
+        public Item next() {
+            if (current >= n)
+                throw new java.util.NoSuchElementException("No more item");
+
+            int ix = find(fen, wts.length, n, StdRandom.uniform() * fen[wts.length]);
+            while (wts[ix] == 0.0) ix = (ix + 1) % n;  // already returned, landed on by rounding errors only
+            add(fen, wts.length, ix, -wts[ix]);
+            wts[ix] = 0.0;
+            current++;
+            return items[ix];
+        }
+    }
+
+    // construct an empty weighted randomized queue
+    @SuppressWarnings("unchecked")
+    public WeightedRandomizedQueue() {
+        this.cap = MIN_CAP;
+        this.q = (Item[]) new Object[this.cap];
+        this.w = new double[this.cap];
+        this.tree = new double[this.cap + 1];
+        this.sz = 0;
+    }
+
+    // is the randomized queue empty?
+    public boolean isEmpty() {
+        return this.sz == 0;
+    }
+
+    // return the number of items on the randomized queue
+    public int size() {
+        return this.sz;
+    }
+
+    // add the item, with given weight
+    public void enqueue(Item item, double weight) {
+        checkItem(item);
+        checkWeight(weight);
+        if (this.pos.containsKey(item)) throw new IllegalArgumentException("item already in queue: " + item);
+
+        if (this.sz == this.cap) resize(2 * this.cap);
+        this.q[this.sz] = item;
+        this.pos.put(item, this.sz);
+        setAt(this.sz, weight);
+        this.sz++;
+    }
+
+    // remove and return a random item, with probability proportional to its weight
+    public Item dequeue() {
+        if (this.sz == 0)
+            throw new java.util.NoSuchElementException("Cannot remove item from empty YaQueue");
+
+        int ix = draw();
+        Item item = this.q[ix];
+        int last = this.sz - 1;
+        if (ix != last) {  // swap with last element
+            this.q[ix] = this.q[last];
+            this.pos.put(this.q[ix], ix);
+            setAt(ix, this.w[last]);
+        }
+        setAt(last, 0.0);
+        this.q[last] = null;
+        this.pos.remove(item);
+        this.sz--;
+
+        if (this.sz == this.cap / 4 && this.cap > MIN_CAP) resize(this.cap / 2);
+        return item;
+    }
+
+    // return a random item (but do not remove it), with probability proportional to its weight
+    public Item sample() {
+        if (this.sz == 0)
+            throw new java.util.NoSuchElementException("Cannot sample from empty YaQueue");
+
+        return this.q[draw()];
+    }
+
+    // weight of given item
+    public double weight(Item item) {
+        return this.w[indexOf(item)];
+    }
+
+    // change the weight of given item
+    public void setWeight(Item item, double weight) {
+        checkWeight(weight);
+        setAt(indexOf(item), weight);
+    }
+
+    // return an independent iterator over items in random weighted order
+    public Iterator<Item> iterator() {
+        return new QueueIterator();
+    }
+
+    // unit testing
+    public static void main(String[] args) {
+        System.out.println("let's start");
+        WeightedRandomizedQueue<Integer> wq = new WeightedRandomizedQueue<Integer>();
+        assert wq.isEmpty() && wq.size() == 0;
+
+        System.out.println("--- weighted sample: weights 1, 2, 3, 4 ---");
+        for (int ix = 1; ix <= 4; ix++) wq.enqueue(ix, ix);
+        assertFrequencies(wq, new double[] { 0.1, 0.2, 0.3, 0.4 });
+
+        System.out.println("--- weight update: 4 -> 0.25, 1 -> 4.75 ---");
+        wq.setWeight(4, 0.25);
+        wq.setWeight(1, 4.75);
+        assert wq.weight(1) == 4.75 && wq.weight(4) == 0.25;
+        assertFrequencies(wq, new double[] { 0.475, 0.2, 0.3, 0.025 });
+
+        System.out.println("--- dequeue: heavy item first (most of the time), every item once ---");
+        final int N = 1000;
+        int heavyFirst = 0;
+        for (int t = 0; t < 200; t++) {
+            WeightedRandomizedQueue<Integer> hq = new WeightedRandomizedQueue<Integer>();
+            for (int ix = 0; ix < N; ix++) hq.enqueue(ix, ix == 0 ? N : 1.0);   // item 0: half the total weight
+            boolean[] seen = new boolean[N];
+            for (int num = 0; num < N; num++) {
+                int item = hq.dequeue();
+                if (num == 0 && item == 0) heavyFirst++;
+                assert !seen[item] : "item " + item + " dequeued twice";
+                seen[item] = true;
+            }
+            assert hq.isEmpty();
+            assert hq.cap == MIN_CAP : "capacity should be back to " + MIN_CAP + ", got: " + hq.cap;
+        }
+        assert heavyFirst > 80 && heavyFirst < 120 : "heavy item first " + heavyFirst + " times out of 200";
+
+        System.out.println("--- iterator: every item once ---");
+        boolean[] seen = new boolean[5];
+        for (int item : wq) {
+            assert !seen[item];
+            seen[item] = true;
+        }
+        assert seen[1] && seen[2] && seen[3] && seen[4] && wq.size() == 4;
+
+        System.out.println("--- churn at steady size: no drift of the tree (rebuilt every cap updates) ---");
+        WeightedRandomizedQueue<Integer> cq = new WeightedRandomizedQueue<Integer>();
+        for (int ix = 1; ix <= 4; ix++) cq.enqueue(ix, 0.1);
+        for (int t = 0; t < 100000; t++) {  // each round trip through ~3e15 loses up to an ulp of it (0.5)
+            cq.setWeight(1 + t % 4, Math.PI * 1e15);
+            cq.setWeight(1 + t % 4, 0.1);
+        }
+        double err = Math.abs(cq.tree[cq.cap] - 0.4);  // bounded by the updates since the last rebuild
+        assert err <= cq.cap * Math.ulp(Math.PI * 1e15) : "total weight drifted to " + cq.tree[cq.cap];
+        for (int ix = 1; ix <= 4; ix++) cq.setWeight(ix, 0.1);  // rebuild, rounding errors gone
+        assert Math.abs(cq.tree[cq.cap] - 0.4) < 1e-12 : "total weight: " + cq.tree[cq.cap];
+        assertFrequencies(cq, new double[] { 0.25, 0.25, 0.25, 0.25 });
+
+        try {
+            wq.enqueue(1, 1.0);
+            assert false : "duplicate item should be rejected";
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Intercepted expected exception: " + ex.getMessage());
+        }
+        System.out.println("--- Completed ---");
+    }
+
+    // position of a random item, with probability proportional to its weight
+    private int draw() {
+        return find(this.tree, this.cap, this.sz, StdRandom.uniform() * this.tree[this.cap]);
+    }
+
+    // set the weight of the item at position ix
+    private void setAt(int ix, double weight) {
+        add(this.tree, this.cap, ix, weight - this.w[ix]);
+        this.w[ix] = weight;
+        if (++this.updates >= this.cap) rebuild();  // O(cap) every cap updates: rounding errors do not pile up
+    }
+
+    private int indexOf(Item item) {
+        checkItem(item);
+        Integer ix = this.pos.get(item);
+        if (ix == null) throw new IllegalArgumentException("item not in queue: " + item);
+        return ix;
+    }
+
+    // extend or shrink size of underlying arrays, rebuilding the tree
+    @SuppressWarnings("unchecked")
+    private void resize(int newCap) {
+        Item[] cq = (Item[]) new Object[newCap];
+        System.arraycopy(this.q, 0, cq, 0, this.sz);
+        double[] cw = new double[newCap];
+        System.arraycopy(this.w, 0, cw, 0, this.sz);
+        this.q = cq;
+        this.w = cw;
+        this.tree = new double[newCap + 1];
+        this.cap = newCap;
+        rebuild();
+    }
+
+    // Fenwick tree rebuilt from the weights in O(cap), resets the rounding errors of the incremental updates
+    private void rebuild() {
+        java.util.Arrays.fill(this.tree, 0.0);
+        for (int i = 1; i <= this.cap; i++) {
+            this.tree[i] += this.w[i - 1];
+            int j = i + (i & -i);
+            if (j <= this.cap) this.tree[j] += this.tree[i];
+        }
+        this.updates = 0;
+    }
+
+    // Fenwick tree: add delta to the weight at position ix
+    private static void add(double[] fen, int cap, int ix, double delta) {
+        for (int i = ix + 1; i <= cap; i += i & -i) fen[i] += delta;
+    }
+
+    /*
+     * Fenwick tree (cap a power of 2): smallest position ix such that the sum of weights at 0..ix exceeds r,
+     * by descent from the root. Clamped to the last item, should rounding errors make r reach the total.
+     */
+    private static int find(double[] fen, int cap, int sz, double r) {
+        int ix = 0;  // number of positions known to sum up to <= r
+        for (int step = cap; step > 0; step >>>= 1) {
+            if (ix + step <= cap && fen[ix + step] <= r) {
+                ix += step;
+                r -= fen[ix];
+            }
+        }
+        return Math.min(ix, sz - 1);
+    }
+
+    private void checkItem(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("item cannot be null");
+    }
+
+    private void checkWeight(double weight) {
+        if (!(weight > 0.0 && weight < Double.POSITIVE_INFINITY))
+            throw new IllegalArgumentException("weight must be > 0 and finite, got: " + weight);
+    }
+
+    private static void assertFrequencies(WeightedRandomizedQueue<Integer> wq, double[] expected) {
+        final int TRIALS = 100000;
+        int[] count = new int[expected.length + 1];
+        for (int t = 0; t < TRIALS; t++) count[wq.sample()]++;
+        for (int ix = 1; ix <= expected.length; ix++) {
+            double freq = 1.0 * count[ix] / TRIALS;
+            assert Math.abs(freq - expected[ix - 1]) < 0.01 : "item " + ix + " sampled with frequency " + freq;
+        }
+    }
+}
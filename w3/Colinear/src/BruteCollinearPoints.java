@@ -22,14 +22,25 @@ public class BruteCollinearPoints {
 
         for (int ix = 0; ix < len; ix++) {
             if (points[ix] == null) throw new IllegalArgumentException("Null point detected");
-            if (ix > 0 && find(points[ix], ix)) throw new IllegalArgumentException("Duplicate point detected");
             this.points[ix] = points[ix];
-            Arrays.sort(this.points, 0, ix + 1);
+        }
+        Arrays.sort(this.points); // once sorted, duplicates are adjacent
+        for (int ix = 1; ix < len; ix++) {
+            if (this.points[ix - 1].compareTo(this.points[ix]) == 0)
+                throw new IllegalArgumentException("Duplicate point detected");
         }
         this.numSeg = 0;
         calcSegments();
     }
 
+    // ditto, on a packed point set (points are indexes, in Point order)
+    public BruteCollinearPoints(final PointSet set) {
+        if (set == null) throw new IllegalArgumentException("Null point set given");
+
+        this.points = null; // only used by the Point[] search
+        calcSegments(set);
+    }
+
     public int numberOfSegments() {
         return this.numSeg;
     }
@@ -76,11 +87,27 @@ public class BruteCollinearPoints {
         this.lSeg = lseg.toArray(ary);
     }
 
-    private boolean find(Point px, int ix) {
-        for (int jx = 0; jx < ix; jx++) {
-            if (this.points[jx].compareTo(px) == 0) return true;
+    private void calcSegments(PointSet set) {
+        final ArrayList<LineSegment> lseg = new ArrayList<LineSegment>();
+        final int n = set.size();
+
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double slopeIJ = set.slope(i, j);
+
+                for (int k = j + 1; k < n; k++) {
+                    if (Double.compare(slopeIJ, set.slope(i, k)) != 0) continue;
+
+                    for (int l = k + 1; l < n; l++) {
+                        if (Double.compare(slopeIJ, set.slope(i, l)) != 0) continue;
+
+                        lseg.add(new LineSegment(set.point(i), set.point(l)));
+                    }
+                }
+            }
         }
-        return false;
+        this.numSeg = lseg.size();
+        this.lSeg = lseg.toArray(new LineSegment[this.numSeg]);
     }
 
 }
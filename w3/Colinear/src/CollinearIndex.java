@@ -0,0 +1,251 @@
+/******************************************************************************
+ *
+ *  Name: Pascal P.
+ *  Date: Oct 2020
+ *  Description: Assign 3 - incremental collinear points
+ *
+ ******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ * Maximal segments of 4+ points, maintained as points are added one at a time (rather than recomputed
+ * by FastCollinearPoints / HashCollinearPoints on each update): add() is O(n) expected, segments() O(number of
+ * segments).
+ *
+ * Each point keeps a hash map from (exact, reduced) direction, as in HashCollinearPoints, to what lies
+ * on the line through it in that direction: the only other point when there is one (a pair), else a line shared
+ * by all its points (count, smallest and largest point). Adding q looks up, for each point p, the direction p->q:
+ * a miss creates a pair, a pair becomes a line of 3 points, a line gets one more point (once, even though it is
+ * reached from each of its points). Memory is O(n^2) (one entry per pair of points, per point).
+ */
+public class CollinearIndex {
+    private static final int MIN_CAP = 8;
+
+    private Point[] points = new Point[MIN_CAP];
+    private DirectionMap[] maps = new DirectionMap[MIN_CAP];  // maps[ix]: lines through points[ix]
+    private int n;
+    private final PointHashSet seen = new PointHashSet();
+    private long minX = Long.MAX_VALUE, maxX = Long.MIN_VALUE, minY = Long.MAX_VALUE, maxY = Long.MIN_VALUE;
+
+    // lines of 3+ points (structure of arrays): number of points, smallest/largest point, last point added
+    private int[] count = new int[MIN_CAP], lo = new int[MIN_CAP], hi = new int[MIN_CAP], stamp = new int[MIN_CAP];
+    private int numLines;
+    private final ArrayList<Integer> segLines = new ArrayList<Integer>();  // lines of 4+ points
+
+    /*
+     * Open addressing map (resized at half full): direction (0L never is one, hence the empty slot) -> value,
+     * line + 1 (> 0) or -(other point + 1) (< 0) for a pair, 0 when absent.
+     */
+    private static final class DirectionMap {
+        private long[] keys = new long[4];
+        private int[] vals = new int[4];
+        private int size, shift = 62;
+
+        int get(long key) {
+            return this.vals[slot(key)];
+        }
+
+        void put(long key, int val) {
+            int h = slot(key);
+            if (this.keys[h] == 0L) {
+                this.keys[h] = key;
+                this.size++;
+            }
+            this.vals[h] = val;
+            if (this.size > this.keys.length / 2) resize();
+        }
+
+        private int slot(long key) {
+            int mask = this.keys.length - 1;
+            int h = (int) ((key * 0x9E3779B97F4A7C15L) >>> this.shift);  // Fibonacci hashing
+            while (this.keys[h] != 0L && this.keys[h] != key) h = (h + 1) & mask;
+            return h;
+        }
+
+        private void resize() {
+            long[] oldKeys = this.keys;
+            int[] oldVals = this.vals;
+            this.keys = new long[2 * oldKeys.length];
+            this.vals = new int[2 * oldKeys.length];
+            this.shift--;
+            for (int h = 0; h < oldKeys.length; h++) {
+                if (oldKeys[h] == 0L) continue;
+                int s = slot(oldKeys[h]);
+                this.keys[s] = oldKeys[h];
+                this.vals[s] = oldVals[h];
+            }
+        }
+    }
+
+    // construct an empty index
+    public CollinearIndex() {
+    }
+
+    public int size() {
+        return this.n;
+    }
+
+    /*
+     * Add given point, return the segments (4+ points) it created or extended (empty array if none).
+     * Coordinates of all the points must span at most Integer.MAX_VALUE (exact directions).
+     */
+    public LineSegment[] add(Point q) {
+        if (q == null) throw new IllegalArgumentException("Null point given");
+        if (this.seen.contains(q)) throw new IllegalArgumentException("Duplicate point detected");
+        checkRange(q);
+        this.seen.add(q);
+
+        final int qx = this.n;
+        if (qx == this.points.length) {
+            this.points = Arrays.copyOf(this.points, 2 * qx);
+            this.maps = Arrays.copyOf(this.maps, 2 * qx);
+        }
+        this.points[qx] = q;
+        DirectionMap qmap = new DirectionMap();
+        this.maps[qx] = qmap;
+        this.n++;
+
+        final ArrayList<LineSegment> changed = new ArrayList<LineSegment>();
+        for (int px = 0; px < qx; px++) {
+            long dir = HashCollinearPoints.direction(q.x() - this.points[px].x(), q.y() - this.points[px].y());
+            int val = this.maps[px].get(dir);
+            if (val == 0) { // new pair
+                this.maps[px].put(dir, -(qx + 1));
+                qmap.put(dir, -(px + 1));
+            }
+            else if (val < 0) { // pair -> line of 3 points
+                int ox = -val - 1, line = newLine(px, ox, qx);
+                this.maps[px].put(dir, line + 1);
+                this.maps[ox].put(dir, line + 1);
+                qmap.put(dir, line + 1);
+            }
+            else if (this.stamp[val - 1] != qx) { // line reached for the first time from q
+                int line = val - 1;
+                this.stamp[line] = qx;
+                this.count[line]++;
+                boolean extended = false;
+                if (q.compareTo(this.points[this.lo[line]]) < 0) {
+                    this.lo[line] = qx;
+                    extended = true;
+                }
+                if (q.compareTo(this.points[this.hi[line]]) > 0) {
+                    this.hi[line] = qx;
+                    extended = true;
+                }
+                qmap.put(dir, val);
+                if (this.count[line] == 4) this.segLines.add(line);
+                if (this.count[line] == 4 || extended) changed.add(segment(line));
+            }
+        }
+        return changed.toArray(new LineSegment[changed.size()]);
+    }
+
+    public int numberOfSegments() {
+        return this.segLines.size();
+    }
+
+    // current maximal segments
+    public LineSegment[] segments() {
+        LineSegment[] segs = new LineSegment[this.segLines.size()];
+        for (int ix = 0; ix < segs.length; ix++) segs[ix] = segment(this.segLines.get(ix));
+        return segs;
+    }
+
+    private LineSegment segment(int line) {
+        return new LineSegment(this.points[this.lo[line]], this.points[this.hi[line]]);
+    }
+
+    // line of the 3 given points, the last one (being added) stamped as such
+    private int newLine(int ax, int bx, int qx) {
+        if (this.numLines == this.count.length) {
+            int cap = 2 * this.numLines;
+            this.count = Arrays.copyOf(this.count, cap);
+            this.lo = Arrays.copyOf(this.lo, cap);
+            this.hi = Arrays.copyOf(this.hi, cap);
+            this.stamp = Arrays.copyOf(this.stamp, cap);
+        }
+        int line = this.numLines++;
+        this.count[line] = 3;
+        this.lo[line] = min(min(ax, bx), qx);
+        this.hi[line] = max(max(ax, bx), qx);
+        this.stamp[line] = qx;
+        return line;
+    }
+
+    private int min(int ax, int bx) {
+        return this.points[ax].compareTo(this.points[bx]) <= 0 ? ax : bx;
+    }
+
+    private int max(int ax, int bx) {
+        return this.points[ax].compareTo(this.points[bx]) >= 0 ? ax : bx;
+    }
+
+    // differences of coordinates (hence their negation) must fit in an int, see HashCollinearPoints
+    private void checkRange(Point q) {
+        if (Math.max(this.maxX, q.x()) - Math.min(this.minX, q.x()) > Integer.MAX_VALUE
+            || Math.max(this.maxY, q.y()) - Math.min(this.minY, q.y()) > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Coordinates span more than " + Integer.MAX_VALUE);
+        this.minX = Math.min(this.minX, q.x());
+        this.maxX = Math.max(this.maxX, q.x());
+        this.minY = Math.min(this.minY, q.y());
+        this.maxY = Math.max(this.maxY, q.y());
+    }
+
+    // unit testing
+    public static void main(String[] args) {
+        System.out.println("let's start");
+
+        System.out.println("--- one line, growing at both ends ---");
+        CollinearIndex index = new CollinearIndex();
+        assert index.add(new Point(2, 2)).length == 0;
+        assert index.add(new Point(3, 3)).length == 0;
+        assert index.add(new Point(4, 4)).length == 0;
+        assert index.numberOfSegments() == 0;
+        assert Arrays.toString(index.add(new Point(5, 5))).equals("[(2, 2) -> (5, 5)]");
+        assert Arrays.toString(index.add(new Point(0, 0))).equals("[(0, 0) -> (5, 5)]");
+        assert index.add(new Point(1, 1)).length == 0 : "inner point: not extended";
+        assert index.add(new Point(9, 0)).length == 0;
+        assert Arrays.toString(index.segments()).equals("[(0, 0) -> (5, 5)]") && index.size() == 7;
+
+        System.out.println("--- random insertions on a small grid, against HashCollinearPoints ---");
+        java.util.Random rnd = new java.util.Random(5);
+        for (int t = 0; t < 50; t++) {
+            int side = 4 + rnd.nextInt(10), n = rnd.nextInt(side * side / 2 + 1);
+            java.util.HashSet<Integer> used = new java.util.HashSet<Integer>();
+            Point[] pts = new Point[n];
+            index = new CollinearIndex();
+            java.util.HashSet<String> before = new java.util.HashSet<String>();
+            for (int ix = 0; ix < n; ) {
+                int x = rnd.nextInt(side) - side / 2, y = rnd.nextInt(side);
+                if (!used.add(x * 100 + y)) continue;
+                pts[ix] = new Point(x, y);
+                LineSegment[] changed = index.add(pts[ix++]);
+
+                java.util.HashSet<String> after = toSet(index.segments());
+                assert after.equals(toSet(new HashCollinearPoints(Arrays.copyOf(pts, ix)).segments()))
+                        : ix + " points: " + after;
+                after.removeAll(before);
+                assert after.equals(toSet(changed)) : "changed: " + Arrays.toString(changed) + " / expected: " + after;
+                before = toSet(index.segments());
+            }
+        }
+
+        try {
+            index = new CollinearIndex();
+            index.add(new Point(1, 2));
+            index.add(new Point(1, 2));
+            assert false : "duplicate point should be rejected";
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Intercepted expected exception: " + ex.getMessage());
+        }
+        System.out.println("--- Completed ---");
+    }
+
+    private static java.util.HashSet<String> toSet(LineSegment[] segs) {
+        java.util.HashSet<String> set = new java.util.HashSet<String>();
+        for (LineSegment seg : segs) set.add(seg.toString());
+        return set;
+    }
+}
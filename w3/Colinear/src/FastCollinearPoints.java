@@ -2,8 +2,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class FastCollinearPoints {
+    private static final int LEAF_ANCHORS = 16; // parallel mode: number of anchors processed sequentially by a leaf task
+
     private final Point[] points;
     private LineSegment[] lSeg;
     private int numSeg;
@@ -56,18 +60,38 @@ public class FastCollinearPoints {
     /* ********************************************************************************************************** */
 
     public FastCollinearPoints(Point[] points) { // finds all line segments containing 4 points
+        this(points, null, false);
+    }
+
+    // ditto, anchors processed in parallel on given pool (same segments, in the same order)
+    public FastCollinearPoints(Point[] points, ForkJoinPool pool) {
+        this(points, pool, true);
+    }
+
+    // ditto, on a packed point set: primitive slopes and sorts (same segments, possibly in another order)
+    public FastCollinearPoints(PointSet set) {
+        if (set == null) throw new IllegalArgumentException("Null point set given");
+
+        this.points = null; // only used by the Point[] search
+        calcSegments(set);
+    }
+
+    private FastCollinearPoints(Point[] points, ForkJoinPool pool, boolean parallel) {
+        if (parallel && pool == null) throw new IllegalArgumentException("pool cannot be null");
         if (points == null) throw new IllegalArgumentException("Null points array given");
 
         this.points = new Point[points.length]; // defensive progr. make a copy
         for (int ix = 0; ix < points.length; ix++) {
             if (points[ix] == null) throw new IllegalArgumentException("Null point detected");
-            if (ix > 0 && find(points[ix], ix)) throw new IllegalArgumentException("Null point detected");
-
             this.points[ix] = points[ix];
-            Arrays.sort(this.points, 0, ix + 1);
+        }
+        Arrays.sort(this.points); // once sorted, duplicates are adjacent
+        for (int ix = 1; ix < points.length; ix++) {
+            if (this.points[ix - 1].compareTo(this.points[ix]) == 0)
+                throw new IllegalArgumentException("Duplicate point detected");
         }
         this.numSeg = 0;
-        calcSegments();
+        calcSegments(pool);
     }
 
     public int numberOfSegments() {
@@ -78,35 +102,40 @@ public class FastCollinearPoints {
         return Arrays.copyOf(this.lSeg, this.numSeg);
     }
 
-    // called from constructor and not from segment() method
-    private void calcSegments() {
-        if (this.points.length < 4) this.lSeg = new LineSegment[]{};
+    /*
+     * Anchors are independent: in parallel mode, ranges of anchors are split across a fork-join pool, each leaf task
+     * collecting the candidate segments of its anchors in its own list, lists concatenated in anchor order
+     * (hence the same result as the sequential mode), before the common dedupe.
+     */
+    private class AnchorTask extends RecursiveTask<ArrayList<Triple>> {
+        private static final long serialVersionUID = 1L;
 
-        final ArrayList<Triple> lpt = new ArrayList<Triple>();
-        int sz = this.points.length;
-        for (Point p0 : points) {
-            sz--;
-            Point[] pary = creatSortedCpyAry(p0, sz); // sort per order of slope
+        private final int lo, hi;
 
-            int len = 1; // len. in term of points
-            for (int ix = 1; ix < sz; ix++) {
-                if (Double.compare(p0.slopeTo(pary[ix - 1]), p0.slopeTo(pary[ix])) == 0) {
-                    len++;
-                    if (ix < sz) continue;
-                }
-                if (len >= 3) { // found colinear segment
-                    lpt.add(new Triple(p0, pary[ix - 1], p0.slopeTo(pary[ix - 1])));
-                    this.numSeg++;
-                }
-                len = 1; // reset
-            }
-            if (len >= 3) { // found last colinear segment
-                lpt.add(new Triple(p0, pary[sz - 1], p0.slopeTo(pary[sz - 1])));
-                this.numSeg++;
-            }
+        AnchorTask(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
 
-            if (sz < 4) break; // no point checking further, not enough points
+        protected ArrayList<Triple> compute() {
+            if (hi - lo <= LEAF_ANCHORS) return anchorSegments(lo, hi);
+
+            int mid = (lo + hi) >>> 1;
+            AnchorTask right = new AnchorTask(mid, hi);
+            right.fork();
+            ArrayList<Triple> lpt = new AnchorTask(lo, mid).compute();
+            lpt.addAll(right.join());
+            return lpt;
         }
+    }
+
+    // called from constructor and not from segment() method
+    private void calcSegments(ForkJoinPool pool) {
+        if (this.points.length < 4) this.lSeg = new LineSegment[]{};
+
+        final int n = this.points.length;
+        final ArrayList<Triple> lpt = pool == null ? anchorSegments(0, n) : pool.invoke(new AnchorTask(0, n));
+        this.numSeg = lpt.size();
         Collections.sort(lpt, new Triple().destSlopeOrder());
         ArrayList<Integer> ixes = new ArrayList<Integer>();
         int lim = this.numSeg, dup = 0;
@@ -129,11 +158,103 @@ public class FastCollinearPoints {
         }
     }
 
-    private boolean find(Point px, int ix) {
-        for (int jx = 0; jx < ix; jx++) {
-            if (this.points[jx].compareTo(px) == 0) return true;
+    /*
+     * Search on a PointSet: for each anchor i, the slopes to the points j > i are sorted (stable, hence the points
+     * of a same slope stay in Point order, the last one being the end of the segment), then the points j < i
+     * discard the slopes they share with i (i is not the first point of that segment): no dedupe needed.
+     */
+    private void calcSegments(PointSet set) {
+        final int n = set.size();
+        final double[] slopes = new double[n], auxS = new double[n], cand = new double[n];
+        final int[] idx = new int[n], auxI = new int[n], candLast = new int[n];
+        final boolean[] dead = new boolean[n];
+        final ArrayList<LineSegment> lseg = new ArrayList<LineSegment>();
+
+        for (int i = 0; i + 3 < n; i++) { // need 3 more points after the anchor
+            int m = 0;
+            for (int j = i + 1; j < n; j++) {
+                slopes[m] = set.slope(i, j);
+                idx[m++] = j;
+            }
+            PointSet.sortBySlope(slopes, idx, m, auxS, auxI);
+
+            int numCand = 0; // slopes shared by 3+ points (sorted)
+            for (int lo = 0, hi; lo < m; lo = hi) {
+                hi = lo + 1;
+                while (hi < m && slopes[hi] == slopes[lo]) hi++;
+                if (hi - lo >= 3) {
+                    cand[numCand] = slopes[lo];
+                    candLast[numCand] = idx[hi - 1];
+                    dead[numCand++] = false;
+                }
+            }
+            if (numCand == 0) continue;
+
+            for (int j = 0; j < i; j++) {
+                int c = Arrays.binarySearch(cand, 0, numCand, set.slope(i, j));
+                if (c >= 0) dead[c] = true;
+            }
+            for (int c = 0; c < numCand; c++) {
+                if (!dead[c]) lseg.add(new LineSegment(set.point(i), set.point(candLast[c])));
+            }
+        }
+        this.numSeg = lseg.size();
+        this.lSeg = lseg.toArray(new LineSegment[this.numSeg]);
+    }
+
+    // candidate segments (sub-segments included) found from anchors lo..hi-1
+    private ArrayList<Triple> anchorSegments(int lo, int hi) {
+        final ArrayList<Triple> lpt = new ArrayList<Triple>();
+        for (int ax = lo; ax < hi; ax++) {
+            Point p0 = this.points[ax];
+            int sz = this.points.length - 1 - ax;  // number of points > p0
+            if (sz < 3) break; // no point checking further, not enough points
+            Point[] pary = creatSortedCpyAry(p0, sz); // sort per order of slope
+
+            int len = 1; // len. in term of points
+            for (int ix = 1; ix < sz; ix++) {
+                if (Double.compare(p0.slopeTo(pary[ix - 1]), p0.slopeTo(pary[ix])) == 0) {
+                    len++;
+                    if (ix < sz) continue;
+                }
+                if (len >= 3) { // found colinear segment
+                    lpt.add(new Triple(p0, pary[ix - 1], p0.slopeTo(pary[ix - 1])));
+                }
+                len = 1; // reset
+            }
+            if (len >= 3) { // found last colinear segment
+                lpt.add(new Triple(p0, pary[sz - 1], p0.slopeTo(pary[sz - 1])));
+            }
+        }
+        return lpt;
+    }
+
+    // unit testing: parallel mode against sequential mode
+    public static void main(String[] args) {
+        System.out.println("let's start");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        java.util.Random rnd = new java.util.Random(7);
+        for (int t = 0; t < 50; t++) {
+            int side = 8 + rnd.nextInt(32), n = rnd.nextInt(side * side / 4 + 1);
+            java.util.HashSet<Integer> seen = new java.util.HashSet<Integer>();
+            Point[] pts = new Point[n];
+            for (int ix = 0; ix < n; ) {
+                int x = rnd.nextInt(side), y = rnd.nextInt(side);
+                if (seen.add(x * side + y)) pts[ix++] = new Point(x, y);
+            }
+            String expected = Arrays.toString(new FastCollinearPoints(pts).segments());
+            String actual = Arrays.toString(new FastCollinearPoints(pts, pool).segments());
+            assert expected.equals(actual) : n + " points: " + expected + " / got: " + actual;
+        }
+        pool.shutdown();
+
+        try {
+            new FastCollinearPoints(new Point[] { new Point(1, 2) }, null);
+            assert false : "null pool should be rejected";
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Intercepted expected exception: " + ex.getMessage());
         }
-        return false;
+        System.out.println("--- Completed ---");
     }
 
     /*
@@ -0,0 +1,260 @@
+/******************************************************************************
+ *
+ *  Name: Pascal P.
+ *  Date: Oct 2020
+ *  Description: Assign 3 - collinear points, hashing exact slopes
+ *
+ ******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ * Same result as FastCollinearPoints (all maximal segments of 4+ points), in O(n^2) expected time
+ * instead of O(n^2 log n): for each anchor point p, the other points are bucketed by the direction from p,
+ * as a reduced integer pair (dx / gcd, dy / gcd) packed into a long and hashed (open addressing, primitive
+ * arrays reused from one anchor to the next). Slopes are exact, no floating point ties nor near-misses.
+ *
+ * A segment is reported once, from its smallest point: the points > p are bucketed first, then the
+ * points < p only discard the buckets they fall in (p is not the smallest point on that line).
+ * Directions are exact as long as coordinate differences fit in an int (checked by the constructor).
+ */
+public class HashCollinearPoints {
+    private final Point[] points;  // sorted
+    private LineSegment[] lSeg;
+    private int numSeg;
+
+    /*
+     * Open addressing map: reduced direction (0L is never a direction, hence the empty slot) -> number of points
+     * in that direction, last (largest) of them, and whether a smaller point than the anchor is on the line.
+     */
+    private static final class SlopeMap {
+        private final long[] keys;
+        private final int[] count, last;
+        private final boolean[] dead;
+        private final int[] used;  // occupied slots, to clear in O(number of keys)
+        private final int mask, shift;
+        private int numUsed;
+
+        SlopeMap(int n) {
+            int cap = Integer.highestOneBit(Math.max(2, n) * 2 - 1) << 1;  // power of 2 >= 2n, load <= 1/2
+            this.keys = new long[cap];
+            this.count = new int[cap];
+            this.last = new int[cap];
+            this.dead = new boolean[cap];
+            this.used = new int[cap];
+            this.mask = cap - 1;
+            this.shift = 64 - Integer.numberOfTrailingZeros(cap);
+        }
+
+        int slot(long key) {
+            int h = (int) ((key * 0x9E3779B97F4A7C15L) >>> this.shift);  // Fibonacci hashing
+            while (this.keys[h] != 0L && this.keys[h] != key) h = (h + 1) & this.mask;
+            return h;
+        }
+
+        // add point ix in given direction, return the number of points in that direction
+        int add(long key, int ix) {
+            int h = slot(key);
+            if (this.keys[h] == 0L) {
+                this.keys[h] = key;
+                this.count[h] = 0;
+                this.dead[h] = false;
+                this.used[this.numUsed++] = h;
+            }
+            this.last[h] = ix;
+            return ++this.count[h];
+        }
+
+        void kill(long key) {
+            int h = slot(key);
+            if (this.keys[h] != 0L) this.dead[h] = true;
+        }
+
+        void clear() {
+            for (int k = 0; k < this.numUsed; k++) this.keys[this.used[k]] = 0L;
+            this.numUsed = 0;
+        }
+    }
+
+    public HashCollinearPoints(Point[] points) { // finds all line segments containing 4 or more points
+        if (points == null) throw new IllegalArgumentException("Null points array given");
+
+        this.points = new Point[points.length]; // defensive progr. make a copy
+        for (int ix = 0; ix < points.length; ix++) {
+            if (points[ix] == null) throw new IllegalArgumentException("Null point detected");
+            this.points[ix] = points[ix];
+        }
+        Arrays.sort(this.points);
+        for (int ix = 1; ix < this.points.length; ix++) {
+            if (this.points[ix - 1].compareTo(this.points[ix]) == 0)
+                throw new IllegalArgumentException("Duplicate point detected");
+        }
+        checkRange();
+        this.numSeg = 0;
+        calcSegments();
+    }
+
+    public int numberOfSegments() {
+        return this.numSeg;
+    }
+
+    public LineSegment[] segments() {
+        return Arrays.copyOf(this.lSeg, this.numSeg);
+    }
+
+    // called from constructor and not from segment() method
+    private void calcSegments() {
+        final int n = this.points.length;
+        final int[] xs = new int[n], ys = new int[n];
+        for (int ix = 0; ix < n; ix++) {
+            xs[ix] = this.points[ix].x();
+            ys[ix] = this.points[ix].y();
+        }
+
+        final ArrayList<LineSegment> lseg = new ArrayList<LineSegment>();
+        final SlopeMap map = new SlopeMap(n);
+        for (int ix = 0; ix + 3 < n; ix++) { // need 3 more points after the anchor
+            int candidates = 0;
+            for (int jx = ix + 1; jx < n; jx++) {
+                if (map.add(direction(xs[jx] - xs[ix], ys[jx] - ys[ix]), jx) == 3) candidates++;
+            }
+            if (candidates > 0) {
+                for (int jx = 0; jx < ix; jx++) map.kill(direction(xs[jx] - xs[ix], ys[jx] - ys[ix]));
+
+                for (int k = 0; k < map.numUsed; k++) {
+                    int h = map.used[k];
+                    if (map.count[h] >= 3 && !map.dead[h])
+                        lseg.add(new LineSegment(this.points[ix], this.points[map.last[h]]));
+                }
+            }
+            map.clear();
+        }
+        this.numSeg = lseg.size();
+        this.lSeg = lseg.toArray(new LineSegment[this.numSeg]);
+    }
+
+    /*
+     * Direction of (dx, dy) != (0, 0), the same for both senses: oriented towards the points > anchor
+     * (dy > 0, or dy == 0 and dx > 0), reduced by the gcd, packed as dy (high int) : dx (low int).
+     */
+    static long direction(int dx, int dy) {
+        if (dy < 0 || (dy == 0 && dx < 0)) {
+            dx = -dx;
+            dy = -dy;
+        }
+        int g = gcd(Math.abs(dx), dy);
+        return ((long) (dy / g) << 32) | ((dx / g) & 0xffffffffL);
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    // differences of coordinates (hence their negation) must fit in an int
+    private void checkRange() {
+        long minX = Long.MAX_VALUE, maxX = Long.MIN_VALUE, minY = Long.MAX_VALUE, maxY = Long.MIN_VALUE;
+        for (Point p : this.points) {
+            minX = Math.min(minX, p.x());
+            maxX = Math.max(maxX, p.x());
+            minY = Math.min(minY, p.y());
+            maxY = Math.max(maxY, p.y());
+        }
+        if (maxX - minX > Integer.MAX_VALUE || maxY - minY > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Coordinates span more than " + Integer.MAX_VALUE);
+    }
+
+    // unit testing
+    public static void main(String[] args) {
+        System.out.println("let's start");
+
+        System.out.println("--- input8 ---");
+        int[][] input8 = { { 10000, 0 }, { 0, 10000 }, { 3000, 7000 }, { 7000, 3000 }, { 20000, 21000 },
+                           { 3000, 4000 }, { 14000, 15000 }, { 6000, 7000 } };
+        HashCollinearPoints hcp = new HashCollinearPoints(toPoints(input8));
+        assert hcp.numberOfSegments() == 2;
+        assert Arrays.toString(hcp.segments())
+                     .equals("[(10000, 0) -> (0, 10000), (3000, 4000) -> (20000, 21000)]") : Arrays.toString(hcp.segments());
+
+        System.out.println("--- slopes equal as doubles but not as rationals ---");
+        final int K = 1 << 29;  // (K + 1) / K and (K + 2) / (K + 1) round to the same double
+        int[][] close = { { 0, 0 }, { K, K + 1 }, { 2 * K, 2 * K + 2 }, { 3 * K, 3 * K + 3 },
+                          { K + 1, K + 2 }, { 2 * K + 2, 2 * K + 4 } };
+        Point[] cp = toPoints(close);
+        assert cp[0].slopeTo(cp[1]) == cp[0].slopeTo(cp[4]);
+        hcp = new HashCollinearPoints(cp);
+        assert hcp.numberOfSegments() == 1 : Arrays.toString(hcp.segments());
+        assert hcp.segments()[0].toString().equals(new LineSegment(cp[0], cp[3]).toString());
+
+        System.out.println("--- random points on a small grid (many lines), against brute force ---");
+        java.util.Random rnd = new java.util.Random(42);
+        for (int t = 0; t < 200; t++) {
+            int side = 4 + rnd.nextInt(8), n = rnd.nextInt(side * side / 2 + 1);
+            java.util.HashSet<Integer> seen = new java.util.HashSet<Integer>();
+            int[][] coords = new int[n][];
+            for (int ix = 0; ix < n; ) {
+                int x = rnd.nextInt(side) - side / 2, y = rnd.nextInt(side);
+                if (seen.add(x * 100 + y)) coords[ix++] = new int[] { x, y };
+            }
+            Point[] pts = toPoints(coords);
+            String[] expected = bruteMaximal(pts), actual = toStrings(new HashCollinearPoints(pts).segments());
+            assert Arrays.equals(expected, actual) : Arrays.toString(expected) + " / got: " + Arrays.toString(actual);
+            assert Arrays.equals(expected, toStrings(new FastCollinearPoints(pts).segments()));
+        }
+
+        try {
+            new HashCollinearPoints(new Point[] { new Point(1, 2), new Point(3, 4), new Point(1, 2) });
+            assert false : "duplicate point should be rejected";
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Intercepted expected exception: " + ex.getMessage());
+        }
+        try {
+            new HashCollinearPoints(new Point[] { new Point(Integer.MIN_VALUE, 0), new Point(Integer.MAX_VALUE, 0) });
+            assert false : "coordinates spanning more than an int should be rejected";
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Intercepted expected exception: " + ex.getMessage());
+        }
+        System.out.println("--- Completed ---");
+    }
+
+    private static Point[] toPoints(int[][] coords) {
+        Point[] pts = new Point[coords.length];
+        for (int ix = 0; ix < coords.length; ix++) pts[ix] = new Point(coords[ix][0], coords[ix][1]);
+        return pts;
+    }
+
+    private static String[] toStrings(LineSegment[] segs) {
+        String[] strs = new String[segs.length];
+        for (int ix = 0; ix < segs.length; ix++) strs[ix] = segs[ix].toString();
+        Arrays.sort(strs);
+        return strs;
+    }
+
+    // maximal segments, O(n^3): pairs (p, q) being the smallest and largest of 4+ points on their line
+    private static String[] bruteMaximal(Point[] pts) {
+        Point[] sorted = pts.clone();
+        Arrays.sort(sorted);
+        ArrayList<String> segs = new ArrayList<String>();
+        for (int i = 0; i < sorted.length; i++) {
+            for (int j = i + 1; j < sorted.length; j++) {
+                long dx = sorted[j].x() - sorted[i].x(), dy = sorted[j].y() - sorted[i].y();
+                int on = 0;
+                boolean maximal = true;
+                for (int k = 0; k < sorted.length; k++) {
+                    if (dx * (sorted[k].y() - sorted[i].y()) != dy * (sorted[k].x() - sorted[i].x())) continue;
+                    on++;
+                    if (k < i || k > j) maximal = false;
+                }
+                if (on >= 4 && maximal) segs.add(new LineSegment(sorted[i], sorted[j]).toString());
+            }
+        }
+        String[] strs = segs.toArray(new String[0]);
+        Arrays.sort(strs);
+        return strs;
+    }
+}
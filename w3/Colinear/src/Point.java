@@ -123,6 +123,15 @@ public class Point implements Comparable<Point> {
         return "(" + x + ", " + y + ")";
     }
 
+    // coordinates, for the exact (integer) slope computations of HashCollinearPoints
+    int x() {
+        return x;
+    }
+
+    int y() {
+        return y;
+    }
+
     private class SlopeOrder implements Comparator<Point> {
         public int compare(Point p1, Point p2) {
             double slope1 = p1.slopeTo(Point.this);
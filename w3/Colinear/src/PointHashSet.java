@@ -0,0 +1,125 @@
+/******************************************************************************
+ *
+ *  Name: Pascal P.
+ *  Date: Oct 2020
+ *  Description: Assign 3 - hash set of points (duplicate detection)
+ *
+ ******************************************************************************/
+
+/*
+ * Set of points as packed coordinates (x in the high int, y in the low int) in a primitive open addressing table
+ * (linear probing, resized at half full): O(1) expected add/contains, no boxing.
+ * Detects duplicates in O(n) expected, without sorting (the collinear searches sort their input anyway,
+ * and check duplicates on the sorted copy): validation of large inputs, points added one at a time.
+ */
+public final class PointHashSet {
+    private static final int MIN_CAP = 16;
+
+    private long[] keys;     // 0L: empty slot, the point (0, 0) being tracked by hasOrigin
+    private boolean hasOrigin;
+    private int size, mask, shift;
+
+    public PointHashSet() {
+        this(MIN_CAP / 2);
+    }
+
+    // empty set, sized for given number of points
+    public PointHashSet(int expected) {
+        int cap = Math.max(MIN_CAP, Integer.highestOneBit(Math.max(1, 2 * expected - 1)) << 1);
+        allocate(cap);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean contains(Point p) {
+        long key = key(p);
+        if (key == 0L) return this.hasOrigin;
+        return this.keys[slot(key)] == key;
+    }
+
+    // add given point, return false if already there
+    public boolean add(Point p) {
+        long key = key(p);
+        if (key == 0L) {
+            if (this.hasOrigin) return false;
+            this.hasOrigin = true;
+            this.size++;
+            return true;
+        }
+
+        int h = slot(key);
+        if (this.keys[h] == key) return false;
+        this.keys[h] = key;
+        if (++this.size > this.keys.length / 2) resize();
+        return true;
+    }
+
+    // first point of given array equal to a previous one, null if none
+    public static Point firstDuplicate(Point[] points) {
+        if (points == null) throw new IllegalArgumentException("Null points array given");
+
+        PointHashSet set = new PointHashSet(points.length);
+        for (Point p : points) {
+            if (p == null) throw new IllegalArgumentException("Null point detected");
+            if (!set.add(p)) return p;
+        }
+        return null;
+    }
+
+    private static long key(Point p) {
+        return ((long) p.x() << 32) | (p.y() & 0xffffffffL);
+    }
+
+    private int slot(long key) {
+        int h = (int) ((key * 0x9E3779B97F4A7C15L) >>> this.shift);  // Fibonacci hashing
+        while (this.keys[h] != 0L && this.keys[h] != key) h = (h + 1) & this.mask;
+        return h;
+    }
+
+    private void allocate(int cap) {
+        this.keys = new long[cap];
+        this.mask = cap - 1;
+        this.shift = 64 - Integer.numberOfTrailingZeros(cap);
+    }
+
+    private void resize() {
+        long[] old = this.keys;
+        allocate(2 * old.length);
+        for (long key : old) {
+            if (key != 0L) this.keys[slot(key)] = key;
+        }
+    }
+
+    // unit testing
+    public static void main(String[] args) {
+        System.out.println("let's start");
+
+        PointHashSet set = new PointHashSet();
+        assert set.size() == 0 && !set.contains(new Point(0, 0));
+        assert set.add(new Point(0, 0)) && !set.add(new Point(0, 0)) && set.contains(new Point(0, 0));
+        assert set.add(new Point(Integer.MIN_VALUE, -1)) && set.add(new Point(-1, Integer.MIN_VALUE));
+        assert !set.add(new Point(-1, Integer.MIN_VALUE)) && set.size() == 3;
+
+        System.out.println("--- against java.util.HashSet, with resizes ---");
+        java.util.Random rnd = new java.util.Random(3);
+        java.util.HashSet<String> ref = new java.util.HashSet<String>();
+        ref.add("(0, 0)");
+        ref.add(new Point(Integer.MIN_VALUE, -1).toString());
+        ref.add(new Point(-1, Integer.MIN_VALUE).toString());
+        for (int ix = 0; ix < 100000; ix++) {
+            Point p = new Point(rnd.nextInt(600) - 300, rnd.nextInt(600) - 300);
+            assert set.contains(p) == ref.contains(p.toString());
+            assert set.add(p) == ref.add(p.toString()) : "add " + p;
+        }
+        assert set.size() == ref.size();
+
+        System.out.println("--- firstDuplicate ---");
+        Point[] pts = { new Point(1, 2), new Point(2, 1), new Point(3, 3), new Point(2, 1) };
+        assert firstDuplicate(pts).compareTo(new Point(2, 1)) == 0;
+        assert firstDuplicate(java.util.Arrays.copyOf(pts, 3)) == null;
+        assert firstDuplicate(new Point[0]) == null;
+        System.out.println("--- Completed ---");
+    }
+}
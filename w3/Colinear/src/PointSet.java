@@ -0,0 +1,209 @@
+/******************************************************************************
+ *
+ *  Name: Pascal P.
+ *  Date: Oct 2020
+ *  Description: Assign 3 - packed point set (structure of arrays)
+ *
+ ******************************************************************************/
+
+import java.util.Arrays;
+
+/*
+ * Immutable set of distinct points stored as two int arrays (xs, ys) in Point order (by y, then by x),
+ * so that FastCollinearPoints and BruteCollinearPoints can run on primitives: points are indexes,
+ * "p < q" is an index comparison, slopes are computed from the coordinates, sorts are on double[] keys.
+ * Point objects are only built for the endpoints of the segments found.
+ */
+public final class PointSet {
+    private static final int INSERTION = 16;  // sortBySlope: runs sorted by insertion
+
+    private final int[] xs, ys;
+
+    // points given as objects
+    public PointSet(Point[] points) {
+        if (points == null) throw new IllegalArgumentException("Null points array given");
+
+        long[] keys = new long[points.length];
+        for (int ix = 0; ix < points.length; ix++) {
+            if (points[ix] == null) throw new IllegalArgumentException("Null point detected");
+            keys[ix] = key(points[ix].x(), points[ix].y());
+        }
+        this.xs = new int[keys.length];
+        this.ys = new int[keys.length];
+        unpack(keys);
+    }
+
+    // points given by their coordinates, (xs[ix], ys[ix])
+    public PointSet(int[] xs, int[] ys) {
+        if (xs == null || ys == null) throw new IllegalArgumentException("Null coordinates array given");
+        if (xs.length != ys.length) throw new IllegalArgumentException("xs and ys must have the same length");
+
+        long[] keys = new long[xs.length];
+        for (int ix = 0; ix < xs.length; ix++) keys[ix] = key(xs[ix], ys[ix]);
+        this.xs = new int[keys.length];
+        this.ys = new int[keys.length];
+        unpack(keys);
+    }
+
+    public int size() {
+        return this.xs.length;
+    }
+
+    public int x(int ix) {
+        return this.xs[ix];
+    }
+
+    public int y(int ix) {
+        return this.ys[ix];
+    }
+
+    public Point point(int ix) {
+        return new Point(this.xs[ix], this.ys[ix]);
+    }
+
+    // slope from point ix to point jx (ix != jx), as Point.slopeTo() (without overflow of the differences)
+    double slope(int ix, int jx) {
+        long dy = (long) this.ys[jx] - this.ys[ix], dx = (long) this.xs[jx] - this.xs[ix];
+        if (dy == 0) return +0.0;
+        if (dx == 0) return Double.POSITIVE_INFINITY;
+        return (double) dy / dx;
+    }
+
+    /*
+     * Stable sort of slopes[0..n), with idx[0..n) along (merge sort on primitives, aux arrays of length >= n
+     * given by the caller so that they can be reused): equal slopes keep the order of their indexes.
+     */
+    static void sortBySlope(double[] slopes, int[] idx, int n, double[] auxS, int[] auxI) {
+        sort(slopes, idx, 0, n, auxS, auxI);
+    }
+
+    private static void sort(double[] s, int[] idx, int lo, int hi, double[] auxS, int[] auxI) {
+        if (hi - lo <= INSERTION) {
+            for (int i = lo + 1; i < hi; i++) {
+                double key = s[i];
+                int ki = idx[i], j = i - 1;
+                for (; j >= lo && s[j] > key; j--) {
+                    s[j + 1] = s[j];
+                    idx[j + 1] = idx[j];
+                }
+                s[j + 1] = key;
+                idx[j + 1] = ki;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sort(s, idx, lo, mid, auxS, auxI);
+        sort(s, idx, mid, hi, auxS, auxI);
+        if (s[mid - 1] <= s[mid]) return;  // already in order
+
+        System.arraycopy(s, lo, auxS, lo, hi - lo);
+        System.arraycopy(idx, lo, auxI, lo, hi - lo);
+        for (int k = lo, i = lo, j = mid; k < hi; k++) {
+            if (i < mid && (j == hi || auxS[i] <= auxS[j])) {  // left first on ties: stable
+                s[k] = auxS[i];
+                idx[k] = auxI[i++];
+            }
+            else {
+                s[k] = auxS[j];
+                idx[k] = auxI[j++];
+            }
+        }
+    }
+
+    // y in the high int, x in the low int (sign bit flipped): signed long order is the Point order
+    private static long key(int x, int y) {
+        return ((long) y << 32) | ((x ^ Integer.MIN_VALUE) & 0xffffffffL);
+    }
+
+    // sort the keys, reject duplicates (adjacent once sorted), fill xs and ys
+    private void unpack(long[] keys) {
+        Arrays.sort(keys);
+        for (int ix = 0; ix < keys.length; ix++) {
+            if (ix > 0 && keys[ix] == keys[ix - 1]) throw new IllegalArgumentException("Duplicate point detected");
+            this.ys[ix] = (int) (keys[ix] >> 32);
+            this.xs[ix] = (int) keys[ix] ^ Integer.MIN_VALUE;
+        }
+    }
+
+    // unit testing
+    public static void main(String[] args) {
+        System.out.println("let's start");
+        java.util.Random rnd = new java.util.Random(11);
+
+        System.out.println("--- Point order, slopes as Point.slopeTo() ---");
+        int[] xs = { 3, -7, Integer.MAX_VALUE, 0, Integer.MIN_VALUE, 5 };
+        int[] ys = { 1, 1, -2, Integer.MIN_VALUE, -2, 9 };
+        PointSet set = new PointSet(xs, ys);
+        assert set.size() == xs.length;
+        for (int ix = 1; ix < set.size(); ix++) assert set.point(ix - 1).compareTo(set.point(ix)) < 0;
+        for (int t = 0; t < 10000; t++) {
+            int n = 2 + rnd.nextInt(8);
+            int[] px = new int[n], py = new int[n];
+            for (int ix = 0; ix < n; ix++) {
+                px[ix] = rnd.nextInt(2001) - 1000;
+                py[ix] = rnd.nextInt(2001) - 1000;
+            }
+            PointSet ps;
+            try {
+                ps = new PointSet(px, py);
+            } catch (IllegalArgumentException ex) {
+                continue;  // duplicate
+            }
+            for (int ix = 0; ix < n; ix++) {
+                for (int jx = 0; jx < n; jx++) {
+                    if (ix == jx) continue;
+                    assert Double.compare(ps.slope(ix, jx), ps.point(ix).slopeTo(ps.point(jx))) == 0;
+                }
+            }
+        }
+
+        System.out.println("--- sortBySlope: sorted and stable ---");
+        for (int t = 0; t < 100; t++) {
+            int n = rnd.nextInt(1000);
+            double[] s = new double[n];
+            int[] idx = new int[n];
+            for (int ix = 0; ix < n; ix++) {
+                s[ix] = rnd.nextInt(10) == 0 ? Double.POSITIVE_INFINITY : rnd.nextInt(20) / 4.0 - 2.0;
+                idx[ix] = ix;
+            }
+            double[] expected = s.clone();
+            Arrays.sort(expected);
+            sortBySlope(s, idx, n, new double[n], new int[n]);
+            assert Arrays.equals(expected, s);
+            for (int ix = 1; ix < n; ix++) assert s[ix - 1] < s[ix] || idx[ix - 1] < idx[ix] : "not stable at " + ix;
+        }
+
+        System.out.println("--- Fast / Brute on PointSet vs. on Point[] ---");
+        for (int t = 0; t < 100; t++) {
+            int side = 4 + rnd.nextInt(12), n = rnd.nextInt(side * side / 3 + 1);
+            java.util.HashSet<Integer> seen = new java.util.HashSet<Integer>();
+            Point[] pts = new Point[n];
+            for (int ix = 0; ix < n; ) {
+                int x = rnd.nextInt(side), y = rnd.nextInt(side);
+                if (seen.add(x * side + y)) pts[ix++] = new Point(x, y);
+            }
+            PointSet ps = new PointSet(pts);
+            String[] expected = toStrings(new FastCollinearPoints(pts).segments());
+            assert Arrays.equals(expected, toStrings(new FastCollinearPoints(ps).segments()));
+            if (n <= 40) {
+                expected = toStrings(new BruteCollinearPoints(pts).segments());
+                assert Arrays.equals(expected, toStrings(new BruteCollinearPoints(ps).segments()));
+            }
+        }
+
+        try {
+            new PointSet(new Point[] { new Point(1, 2), new Point(3, 4), new Point(1, 2) });
+            assert false : "duplicate point should be rejected";
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Intercepted expected exception: " + ex.getMessage());
+        }
+        System.out.println("--- Completed ---");
+    }
+
+    private static String[] toStrings(LineSegment[] segs) {
+        String[] strs = new String[segs.length];
+        for (int ix = 0; ix < segs.length; ix++) strs[ix] = segs[ix].toString();
+        Arrays.sort(strs);
+        return strs;
+    }
+}